@@ -19,10 +19,10 @@ public class DataInitializer {
     public CommandLineRunner loadData() {
         return args -> {
             if (inventoryRepository.count() == 0) {
-                inventoryRepository.save(new InventoryItem(null, "EUC_001", 100));
-                inventoryRepository.save(new InventoryItem(null, "EUC_002", 50));
-                inventoryRepository.save(new InventoryItem(null, "VIC_001", 30));
-                inventoryRepository.save(new InventoryItem(null, "LAR_001", 80));
+                inventoryRepository.save(InventoryItem.builder().productCode("EUC_001").quantity(100).build());
+                inventoryRepository.save(InventoryItem.builder().productCode("EUC_002").quantity(50).build());
+                inventoryRepository.save(InventoryItem.builder().productCode("VIC_001").quantity(30).build());
+                inventoryRepository.save(InventoryItem.builder().productCode("LAR_001").quantity(80).build());
                 
                 System.out.println("Parapharmacy inventory data inserted successfully!");
             }
@@ -1,12 +1,19 @@
 package com.parashop.inventory_service.controller;
 
+import com.parashop.inventory_service.dto.InventoryPageResponse;
 import com.parashop.inventory_service.dto.InventoryUpdateDto;
+import com.parashop.inventory_service.dto.StockReservationResponse;
 import com.parashop.inventory_service.model.InventoryItem;
+import com.parashop.inventory_service.service.InventoryExportService;
 import com.parashop.inventory_service.service.InventoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -14,6 +21,7 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryExportService inventoryExportService;
 
     @GetMapping("/check")
     public boolean isInStock(@RequestParam String productCode, @RequestParam Integer quantity) {
@@ -25,13 +33,76 @@ public class InventoryController {
         return inventoryService.getAllInventory();
     }
 
+    // Pagination par code produit : passer nextCursor dans afterProductCode pour la page suivante
+    @GetMapping("/page")
+    public InventoryPageResponse getPage(@RequestParam(required = false) String afterProductCode,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(required = false) String prefix,
+                                         @RequestParam(required = false) Integer minQuantity,
+                                         @RequestParam(required = false) Integer maxQuantity) {
+        return inventoryService.getInventoryPage(afterProductCode, size, prefix, minQuantity, maxQuantity);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String prefix,
+                                                        @RequestParam(required = false) Integer minQuantity,
+                                                        @RequestParam(required = false) Integer maxQuantity) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(out -> inventoryExportService.exportNdjson(out, prefix, minQuantity, maxQuantity));
+    }
+
     @PostMapping("/update")
     public InventoryItem update(@RequestBody InventoryUpdateDto updateDto) {
         return inventoryService.updateInventory(updateDto);
     }
 
+    @PostMapping("/adjust")
+    public InventoryItem adjust(@RequestParam String productCode, @RequestParam Integer delta,
+                                @RequestParam(required = false) String reason) {
+        return inventoryService.adjust(productCode, delta, reason);
+    }
+
+    @PutMapping("/threshold")
+    public InventoryItem setReorderThreshold(@RequestParam String productCode,
+                                             @RequestParam(required = false) Integer threshold) {
+        return inventoryService.setReorderThreshold(productCode, threshold);
+    }
+
+    // Pagination par code produit : passer le dernier code reçu dans afterProductCode
+    @GetMapping("/low-stock")
+    public List<InventoryItem> getLowStock(@RequestParam(required = false) String afterProductCode,
+                                           @RequestParam(defaultValue = "100") int size) {
+        return inventoryService.getLowStock(afterProductCode, size);
+    }
+
+    @PostMapping("/reserve")
+    public boolean reserve(@RequestParam String productCode, @RequestParam Integer quantity) {
+        return inventoryService.reserve(productCode, quantity);
+    }
+
+    @PostMapping("/reserve/batch")
+    public StockReservationResponse reserveAll(@RequestBody Map<String, Integer> items) {
+        return inventoryService.reserveAll(items);
+    }
+
+    @PostMapping("/release/batch")
+    public void releaseAll(@RequestBody Map<String, Integer> items) {
+        inventoryService.releaseAll(items);
+    }
+
+    @PostMapping("/update/batch")
+    public List<InventoryItem> updateBatch(@RequestBody List<InventoryUpdateDto> updateDtos) {
+        return inventoryService.updateInventoryBatch(updateDtos);
+    }
+
     @GetMapping("/quantity")
     public Integer getQuantity(@RequestParam String productCode) {
         return inventoryService.getQuantity(productCode);
     }
+
+    @PostMapping("/quantities")
+    public Map<String, Integer> getQuantities(@RequestBody List<String> productCodes) {
+        return inventoryService.getQuantities(productCodes);
+    }
 }
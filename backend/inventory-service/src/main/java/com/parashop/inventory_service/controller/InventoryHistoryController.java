@@ -0,0 +1,33 @@
+package com.parashop.inventory_service.controller;
+
+import com.parashop.inventory_service.dto.StockAtTimeResponse;
+import com.parashop.inventory_service.model.InventoryMovement;
+import com.parashop.inventory_service.service.InventoryHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory/movements")
+@RequiredArgsConstructor
+public class InventoryHistoryController {
+
+    private final InventoryHistoryService inventoryHistoryService;
+
+    // Du plus récent au plus ancien ; passer l'id du dernier mouvement reçu dans beforeId pour la page suivante
+    @GetMapping
+    public List<InventoryMovement> getMovements(@RequestParam String productCode,
+                                                @RequestParam(required = false) Long beforeId,
+                                                @RequestParam(defaultValue = "50") int size) {
+        return inventoryHistoryService.getMovements(productCode, beforeId, size);
+    }
+
+    @GetMapping("/quantity-at")
+    public StockAtTimeResponse getQuantityAt(@RequestParam String productCode,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
+        return inventoryHistoryService.getQuantityAt(productCode, at);
+    }
+}
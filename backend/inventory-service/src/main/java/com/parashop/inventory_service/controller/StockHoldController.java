@@ -0,0 +1,84 @@
+package com.parashop.inventory_service.controller;
+
+import com.parashop.inventory_service.dto.HoldRequest;
+import com.parashop.inventory_service.dto.HoldResponse;
+import com.parashop.inventory_service.service.StockHoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory/holds")
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldController {
+
+    private final StockHoldService stockHoldService;
+
+    @PostMapping
+    public HoldResponse placeHold(@RequestBody HoldRequest request) {
+        return stockHoldService.placeHold(request);
+    }
+
+    /**
+     * Une transaction par réservation : un panier refusé ou en erreur n'empêche pas les autres du lot.
+     * Une demande invalide est refusée pour de bon ; toute autre erreur répond {@code ERROR}, que l'appelant retente.
+     */
+    @PostMapping("/batch")
+    public List<HoldResponse> placeHolds(@RequestBody List<HoldRequest> requests) {
+        return requests.stream()
+                .map(request -> {
+                    try {
+                        return stockHoldService.placeHold(request);
+                    } catch (IllegalArgumentException e) {
+                        return new HoldResponse(request.getReference(), false, "REJECTED", List.of(), null);
+                    } catch (RuntimeException e) {
+                        return failed(request.getReference(), e);
+                    }
+                })
+                .toList();
+    }
+
+    @PostMapping("/release/batch")
+    public List<HoldResponse> releaseHolds(@RequestBody List<String> references) {
+        return references.stream()
+                .map(reference -> {
+                    try {
+                        return stockHoldService.release(reference);
+                    } catch (RuntimeException e) {
+                        return failed(reference, e);
+                    }
+                })
+                .toList();
+    }
+
+    @PostMapping("/{reference}/confirm")
+    public HoldResponse confirm(@PathVariable String reference) {
+        return stockHoldService.confirm(reference);
+    }
+
+    @PostMapping("/{reference}/release")
+    public HoldResponse release(@PathVariable String reference) {
+        return stockHoldService.release(reference);
+    }
+
+    // Commande antérieure aux réservations : rend ses quantités une seule fois, même si l'appel est renvoyé
+    @PostMapping("/{reference}/restore")
+    public HoldResponse restoreWithoutHold(@PathVariable String reference, @RequestBody Map<String, Integer> items) {
+        return stockHoldService.restoreWithoutHold(reference, items);
+    }
+
+    // Quantité absolue de la ligne, pas un écart : l'appel peut être renvoyé sans risque
+    @PostMapping("/{reference}/adjust")
+    public HoldResponse setQuantity(@PathVariable String reference, @RequestParam String productCode, @RequestParam Integer quantity) {
+        return stockHoldService.setQuantity(reference, productCode, quantity);
+    }
+
+    private static HoldResponse failed(String reference, RuntimeException e) {
+        log.warn("Réservation {} non traitée : {}", reference, e.getMessage());
+        return new HoldResponse(reference, false, "ERROR", List.of(), null);
+    }
+}
@@ -0,0 +1,34 @@
+package com.parashop.inventory_service.controller;
+
+import com.parashop.inventory_service.service.LowStockAlertService;
+import com.parashop.inventory_service.service.StockStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+public class StockStreamController {
+
+    private final StockStreamService stockStreamService;
+    private final LowStockAlertService lowStockAlertService;
+
+    // Ex. : GET /api/inventory/stream?productCodes=EUC_001,VIC_001 (sans filtre : tous les produits)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Set<String> productCodes) {
+        return stockStreamService.subscribe(productCodes != null ? productCodes : Set.of());
+    }
+
+    // Événements « low-stock » et « restocked » à chaque franchissement de seuil
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter lowStockAlerts() {
+        return lowStockAlertService.subscribe();
+    }
+}
@@ -0,0 +1,16 @@
+package com.parashop.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldRequest {
+    private String reference;
+    private Map<String, Integer> items;
+    private Long ttlSeconds;
+}
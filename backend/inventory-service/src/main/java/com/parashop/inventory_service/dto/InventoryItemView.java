@@ -0,0 +1,8 @@
+package com.parashop.inventory_service.dto;
+
+public record InventoryItemView(String productCode, Integer quantity, Integer reorderThreshold, Boolean belowThreshold) {
+
+    public InventoryItemView withQuantity(Integer newQuantity) {
+        return new InventoryItemView(productCode, newQuantity, reorderThreshold, belowThreshold);
+    }
+}
@@ -0,0 +1,16 @@
+package com.parashop.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryPageResponse {
+    private List<InventoryItemView> items;
+    private String nextCursor; // code produit à passer en afterProductCode pour la page suivante, null si dernière page
+    private boolean hasMore;
+}
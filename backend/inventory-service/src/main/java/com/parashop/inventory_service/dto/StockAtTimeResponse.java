@@ -0,0 +1,17 @@
+package com.parashop.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockAtTimeResponse {
+    private String productCode;
+    private Instant at;
+    private Integer quantity;
+    private Instant snapshotTakenAt; // photo de départ, null si rejoué depuis le début du journal
+}
@@ -0,0 +1,15 @@
+package com.parashop.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReservationResponse {
+    private boolean reserved;
+    private List<String> unavailableProductCodes;
+}
@@ -0,0 +1,18 @@
+package com.parashop.inventory_service.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Publié après chaque mouvement de stock, avec les codes produit concernés.
+ */
+public record StockChangedEvent(Set<String> productCodes) {
+
+    public static StockChangedEvent of(String productCode) {
+        return new StockChangedEvent(Set.of(productCode));
+    }
+
+    public static StockChangedEvent of(Collection<String> productCodes) {
+        return new StockChangedEvent(Set.copyOf(productCodes));
+    }
+}
@@ -0,0 +1,7 @@
+package com.parashop.inventory_service.event;
+
+/**
+ * Publié quand un produit passe sous son seuil de réapprovisionnement ({@code below}) ou repasse au-dessus.
+ */
+public record StockThresholdEvent(String productCode, boolean below) {
+}
@@ -1,15 +1,15 @@
 package com.parashop.inventory_service.model;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// Pas d'index sur quantity : la colonne change à chaque réservation et un index y empêcherait les mises à jour HOT
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_inventory_product_code", columnNames = "productCode"),
+       indexes = @Index(name = "idx_inventory_below_threshold", columnList = "belowThreshold, productCode"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,4 +20,7 @@ public class InventoryItem {
     private Long id;
     private String productCode;
     private Integer quantity;
+    private Integer reorderThreshold; // null : pas d'alerte
+    // Tenu à jour à chaque mouvement, pour lister les produits à réapprovisionner par l'index
+    private Boolean belowThreshold;
 }
@@ -0,0 +1,43 @@
+package com.parashop.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * Mouvement de stock, jamais modifié ni supprimé une fois écrit.
+ */
+@Entity
+@Immutable
+@Table(indexes = {
+        @Index(name = "idx_movement_product_id", columnList = "productCode, id"),
+        @Index(name = "idx_movement_product_occurred", columnList = "productCode, occurredAt")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovement {
+    public static final String ORDER_DECREMENT = "ORDER_DECREMENT";
+    public static final String CANCEL_RESTORE = "CANCEL_RESTORE";
+    public static final String HOLD_EXPIRED = "HOLD_EXPIRED";
+    public static final String RESTOCK_CARTON = "RESTOCK_CARTON";
+    public static final String RESTOCK_PIECE = "RESTOCK_PIECE";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+
+    // Séquence allouée par blocs de 50 : les insertions d'une transaction partent en un seul lot JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_movement_seq")
+    @SequenceGenerator(name = "inventory_movement_seq", sequenceName = "inventory_movement_seq", allocationSize = 50)
+    private Long id;
+    private String productCode;
+    private Integer delta; // en pièces, négatif pour une sortie
+    private String type;
+    private String reference; // numéro de commande, motif d'ajustement...
+    private Instant occurredAt;
+}
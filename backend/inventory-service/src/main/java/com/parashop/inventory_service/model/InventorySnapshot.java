@@ -0,0 +1,25 @@
+package com.parashop.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Quantité d'un produit en tenant compte de tous les mouvements jusqu'à {@code takenAt} inclus.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_snapshot_product_taken", columnList = "productCode, takenAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String productCode;
+    private Integer quantity;
+    private Instant takenAt;
+}
@@ -0,0 +1,26 @@
+package com.parashop.inventory_service.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Bail du stock des produits « chauds » : l'instance qui le tient en mémoire, une seule à la fois,
+ * renouvelé par un battement régulier.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+    private String ownerId;
+    private Instant heartbeatAt;
+}
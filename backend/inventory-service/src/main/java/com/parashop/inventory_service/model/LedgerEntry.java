@@ -0,0 +1,29 @@
+package com.parashop.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Mouvement d'un produit « chaud » pas encore reporté sur sa ligne d'inventaire. Inséré dans la transaction
+ * qui fait le mouvement, supprimé dans celle qui l'applique en base.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    // Séquence allouée par blocs de 50, comme les mouvements : pas d'aller-retour par insertion
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+    private String productCode;
+    private Integer delta; // en pièces, négatif pour une sortie
+}
@@ -0,0 +1,36 @@
+package com.parashop.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_stock_hold_reference_product", columnNames = {"reference", "productCode"}),
+        indexes = {
+        @Index(name = "idx_stock_hold_status_expires", columnList = "status, expiresAt"),
+        @Index(name = "idx_stock_hold_reference", columnList = "reference")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockHold {
+    public static final String HELD = "HELD";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String reference; // numéro de commande
+    private String productCode;
+    private Integer quantity;
+    private String status; // HELD, CONFIRMED, RELEASED, EXPIRED
+    private Instant expiresAt;
+    private Instant createdAt;
+}
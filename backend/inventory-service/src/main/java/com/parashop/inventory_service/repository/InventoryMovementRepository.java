@@ -0,0 +1,21 @@
+package com.parashop.inventory_service.repository;
+
+import com.parashop.inventory_service.model.InventoryMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    List<InventoryMovement> findByProductCodeOrderByIdDesc(String productCode, Pageable pageable);
+
+    List<InventoryMovement> findByProductCodeAndIdLessThanOrderByIdDesc(String productCode, Long beforeId, Pageable pageable);
+
+    @Query("select coalesce(sum(m.delta), 0) from InventoryMovement m " +
+           "where m.productCode = :productCode and m.occurredAt > :from and m.occurredAt <= :to")
+    long sumDeltas(@Param("productCode") String productCode, @Param("from") Instant from, @Param("to") Instant to);
+}
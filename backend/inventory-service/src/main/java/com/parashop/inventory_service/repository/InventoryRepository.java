@@ -1,10 +1,89 @@
 package com.parashop.inventory_service.repository;
 
+import com.parashop.inventory_service.dto.InventoryItemView;
 import com.parashop.inventory_service.model.InventoryItem;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
     Optional<InventoryItem> findByProductCode(String productCode);
+
+    List<InventoryItem> findAllByProductCodeIn(Collection<String> productCodes);
+
+    // Décrément conditionnel en une seule requête : la ligne n'est verrouillée que le temps de l'update
+    @Modifying
+    @Query("update InventoryItem i set i.quantity = i.quantity - :quantity " +
+           "where i.productCode = :productCode and i.quantity >= :quantity")
+    int decrementIfAvailable(@Param("productCode") String productCode, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("update InventoryItem i set i.quantity = i.quantity + :quantity where i.productCode = :productCode")
+    int increment(@Param("productCode") String productCode, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("update InventoryItem i set i.reorderThreshold = :threshold where i.productCode = :productCode")
+    int updateReorderThreshold(@Param("productCode") String productCode, @Param("threshold") Integer threshold);
+
+    // Passage sous le seuil : ne modifie la ligne (et ne retourne 1) qu'au moment du franchissement
+    @Modifying
+    @Query("update InventoryItem i set i.belowThreshold = true where i.productCode = :productCode " +
+           "and i.reorderThreshold is not null and i.quantity < i.reorderThreshold " +
+           "and coalesce(i.belowThreshold, false) = false")
+    int markBelowThreshold(@Param("productCode") String productCode);
+
+    @Modifying
+    @Query("update InventoryItem i set i.belowThreshold = false where i.productCode = :productCode " +
+           "and i.belowThreshold = true and (i.reorderThreshold is null or i.quantity >= i.reorderThreshold)")
+    int clearBelowThreshold(@Param("productCode") String productCode);
+
+    /**
+     * Page suivant {@code afterProductCode} dans l'ordre de l'index unique sur productCode. Le préfixe est
+     * aussi exprimé en borne basse pour que le parcours d'index démarre directement au bon endroit.
+     * Les produits de {@code hotCodes} sont lus quelle que soit leur quantité en base, en retard sur le compteur
+     * en mémoire : l'appelant refiltre sur la quantité du compteur.
+     */
+    @Query("select new com.parashop.inventory_service.dto.InventoryItemView(" +
+           "i.productCode, i.quantity, i.reorderThreshold, i.belowThreshold) from InventoryItem i " +
+           "where i.productCode > :afterProductCode and i.productCode >= :prefix " +
+           "and i.productCode like :pattern escape '\\' " +
+           "and ((:minQuantity is null or i.quantity >= :minQuantity) " +
+           "and (:maxQuantity is null or i.quantity <= :maxQuantity) " +
+           "or i.productCode in :hotCodes) " +
+           "order by i.productCode")
+    List<InventoryItemView> findPage(@Param("afterProductCode") String afterProductCode,
+                                     @Param("prefix") String prefix,
+                                     @Param("pattern") String pattern,
+                                     @Param("minQuantity") Integer minQuantity,
+                                     @Param("maxQuantity") Integer maxQuantity,
+                                     @Param("hotCodes") Collection<String> hotCodes,
+                                     Pageable pageable);
+
+    @Query("select new com.parashop.inventory_service.dto.InventoryItemView(" +
+           "i.productCode, i.quantity, i.reorderThreshold, i.belowThreshold) from InventoryItem i " +
+           "where i.productCode >= :prefix and i.productCode like :pattern escape '\\' " +
+           "and ((:minQuantity is null or i.quantity >= :minQuantity) " +
+           "and (:maxQuantity is null or i.quantity <= :maxQuantity) " +
+           "or i.productCode in :hotCodes) " +
+           "order by i.productCode")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    Stream<InventoryItemView> streamAll(@Param("prefix") String prefix,
+                                        @Param("pattern") String pattern,
+                                        @Param("minQuantity") Integer minQuantity,
+                                        @Param("maxQuantity") Integer maxQuantity,
+                                        @Param("hotCodes") Collection<String> hotCodes);
+
+    List<InventoryItem> findByBelowThresholdTrueAndProductCodeGreaterThanOrderByProductCodeAsc(String afterProductCode, Pageable pageable);
 }
@@ -0,0 +1,42 @@
+package com.parashop.inventory_service.repository;
+
+import com.parashop.inventory_service.model.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    Optional<InventorySnapshot> findFirstByProductCodeAndTakenAtLessThanEqualOrderByTakenAtDesc(String productCode, Instant at);
+
+    /**
+     * Solde d'ouverture des produits sans photo : quantité actuelle moins tous les mouvements déjà journalisés.
+     */
+    @Modifying
+    @Query(value = "insert into inventory_snapshot (product_code, quantity, taken_at) " +
+                   "select i.product_code, i.quantity - coalesce((select sum(m.delta) from inventory_movement m " +
+                   "where m.product_code = i.product_code), 0), :openingAt " +
+                   "from inventory_item i " +
+                   "where not exists (select 1 from inventory_snapshot s where s.product_code = i.product_code)",
+           nativeQuery = true)
+    int insertOpeningBalances(@Param("openingAt") Instant openingAt);
+
+    /**
+     * Nouvelle photo pour chaque produit ayant bougé depuis sa dernière photo, en une seule requête.
+     */
+    @Modifying
+    @Query(value = "insert into inventory_snapshot (product_code, quantity, taken_at) " +
+                   "select s.product_code, s.quantity + sum(m.delta), :cutoff " +
+                   "from inventory_snapshot s " +
+                   "join inventory_movement m on m.product_code = s.product_code " +
+                   "and m.occurred_at > s.taken_at and m.occurred_at <= :cutoff " +
+                   "where s.taken_at = (select max(s2.taken_at) from inventory_snapshot s2 " +
+                   "where s2.product_code = s.product_code) " +
+                   "group by s.product_code, s.quantity",
+           nativeQuery = true)
+    int insertSnapshots(@Param("cutoff") Instant cutoff);
+}
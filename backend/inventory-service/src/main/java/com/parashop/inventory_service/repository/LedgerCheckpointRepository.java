@@ -0,0 +1,29 @@
+package com.parashop.inventory_service.repository;
+
+import com.parashop.inventory_service.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Long> {
+
+    // Prise ou renouvellement du bail : sans effet si une autre instance le tient encore
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.ownerId = :ownerId, c.heartbeatAt = :now " +
+           "where c.id = :id and (c.ownerId is null or c.ownerId = :ownerId or c.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") Long id,
+              @Param("ownerId") String ownerId,
+              @Param("now") Instant now,
+              @Param("staleBefore") Instant staleBefore);
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.heartbeatAt = :now where c.id = :id and c.ownerId = :ownerId")
+    int heartbeat(@Param("id") Long id, @Param("ownerId") String ownerId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.ownerId = null where c.id = :id and c.ownerId = :ownerId")
+    int release(@Param("id") Long id, @Param("ownerId") String ownerId);
+}
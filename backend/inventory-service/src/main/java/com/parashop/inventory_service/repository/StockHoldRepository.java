@@ -0,0 +1,23 @@
+package com.parashop.inventory_service.repository;
+
+import com.parashop.inventory_service.model.StockHold;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockHold> findByReferenceOrderByProductCodeAsc(String reference);
+
+    // Parcours de l'index (status, expiresAt) ; SKIP LOCKED laisse de côté les réservations en cours de traitement
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<StockHold> findByStatusAndExpiresAtBeforeOrderByExpiresAtAsc(String status, Instant now, Pageable pageable);
+}
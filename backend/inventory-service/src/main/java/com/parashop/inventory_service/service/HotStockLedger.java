@@ -0,0 +1,311 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.model.InventoryItem;
+import com.parashop.inventory_service.model.LedgerCheckpoint;
+import com.parashop.inventory_service.model.LedgerEntry;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import com.parashop.inventory_service.repository.LedgerCheckpointRepository;
+import com.parashop.inventory_service.repository.LedgerEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock des produits « chauds » (promotions) tenu en mémoire, optionnel ({@code inventory.ledger.enabled}).
+ * <p>
+ * Les compteurs en mémoire font foi : lectures et réservations ne touchent pas la ligne d'inventaire, point de
+ * contention des promotions. Chaque mouvement est inscrit au journal ({@link LedgerEntry}) par la transaction qui
+ * le fait, avec la réservation qui le justifie : il est durable exactement quand elle l'est et disparaît avec elle
+ * si elle est annulée. Le journal est reporté sur les lignes d'inventaire par lots, chaque lot supprimant ses
+ * entrées dans la même transaction ; au démarrage, le reste du journal est reporté avant de charger les compteurs.
+ * <p>
+ * Les compteurs n'existent que dans une JVM : l'instance prend un bail en base au démarrage et refuse de démarrer
+ * si une autre le tient encore. Faute d'avoir renouvelé son bail, elle cesse de servir les mouvements des produits
+ * chauds et de reporter le journal jusqu'à l'avoir repris. Les instances supplémentaires doivent tourner avec
+ * {@code inventory.ledger.enabled=false} et ne pas servir les produits chauds.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotStockLedger {
+
+    private final InventoryRepository inventoryRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final LedgerEntryRepository entryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockThresholdService stockThresholdService;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.ledger.hot-skus:}")
+    private Set<String> hotSkus;
+
+    @Value("${inventory.ledger.instance-id:${HOSTNAME:localhost}:${server.port:8082}}")
+    private String instanceId;
+
+    @Value("${inventory.ledger.owner-lease:30s}")
+    private Duration ownerLease;
+
+    @Value("${inventory.ledger.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    private final Map<String, AtomicInteger> quantities = new ConcurrentHashMap<>();
+
+    // Fin du service des produits chauds sans nouveau battement : un tiers du bail avant qu'une autre
+    // instance puisse le prendre, pour laisser aux transactions en cours le temps de se terminer
+    private volatile Instant servingUntil = Instant.EPOCH;
+
+    // Protégés par le moniteur de l'instance
+    private Instant lastHeartbeat = Instant.EPOCH;
+    private boolean leaseLost;
+
+    @PostConstruct
+    public synchronized void init() {
+        if (!enabled || hotSkus.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (!claimOwnership(now)) {
+            String owner = checkpointRepository.findById(LedgerCheckpoint.SINGLETON_ID)
+                    .map(LedgerCheckpoint::getOwnerId)
+                    .orElse("?");
+            throw new IllegalStateException("Le stock en mémoire est déjà tenu par l'instance " + owner
+                    + " : une seule instance peut tourner avec inventory.ledger.enabled=true");
+        }
+        int replayed = applyPendingEntries();
+        if (replayed > 0) {
+            log.info("Journal du stock reporté en base : {} mouvements", replayed);
+        }
+        loadQuantities();
+        extendLease(now);
+        log.info("Stock en mémoire activé pour {} produits", quantities.size());
+    }
+
+    public boolean isHot(String productCode) {
+        return quantities.containsKey(productCode);
+    }
+
+    public Set<String> getHotProductCodes() {
+        return Collections.unmodifiableSet(quantities.keySet());
+    }
+
+    public int getQuantity(String productCode) {
+        if (!holdsLease()) {
+            // Une autre instance tient peut-être le stock : la ligne en base, en retard d'un lot au plus, est plus sûre
+            return inventoryRepository.findByProductCode(productCode).map(InventoryItem::getQuantity).orElse(0);
+        }
+        return quantities.get(productCode).get();
+    }
+
+    /**
+     * Décrémente le compteur si la quantité est disponible. Le décrément est visible tout de suite, pour ne pas
+     * vendre deux fois le même stock, et inscrit au journal dans la transaction en cours ; il est rendu si elle
+     * est annulée, y compris quand c'est l'écriture du journal qui échoue.
+     */
+    public boolean reserve(String productCode, int quantity) {
+        checkLease();
+        AtomicInteger counter = quantities.get(productCode);
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+
+        try {
+            journal(productCode, -quantity);
+        } catch (RuntimeException e) {
+            counter.addAndGet(quantity);
+            throw e;
+        }
+        onCompletion(() -> { }, () -> counter.addAndGet(quantity));
+        return true;
+    }
+
+    /**
+     * Ajoute au stock (réapprovisionnement, libération). Le stock ajouté n'est disponible qu'au commit :
+     * une transaction annulée ne doit pas avoir laissé vendre des quantités qui n'existent pas.
+     */
+    public void add(String productCode, int quantity) {
+        checkLease();
+        AtomicInteger counter = quantities.get(productCode);
+        journal(productCode, quantity);
+        onCompletion(() -> counter.addAndGet(quantity), () -> { });
+    }
+
+    /**
+     * Renouvelle le bail, puis reporte en base les entrées du journal validées depuis le dernier lot.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval:1s}")
+    public synchronized void flush() {
+        if (quantities.isEmpty() || !renewOwnership()) {
+            return;
+        }
+        try {
+            applyPendingEntries();
+        } catch (RuntimeException e) {
+            // Les entrées restent au journal : elles seront reportées au prochain passage
+            log.error("Échec du report du journal du stock en base, nouvel essai au prochain lot", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        servingUntil = Instant.EPOCH;
+        if (leaseLost) {
+            return;
+        }
+        applyPendingEntries();
+        transactionTemplate.executeWithoutResult(status ->
+                checkpointRepository.release(LedgerCheckpoint.SINGLETON_ID, instanceId));
+    }
+
+    private boolean holdsLease() {
+        return Instant.now().isBefore(servingUntil);
+    }
+
+    private void checkLease() {
+        if (!holdsLease()) {
+            throw new IllegalStateException("Bail du stock en mémoire non tenu par " + instanceId
+                    + " : mouvements des produits chauds suspendus");
+        }
+    }
+
+    private void extendLease(Instant heartbeat) {
+        lastHeartbeat = heartbeat;
+        servingUntil = heartbeat.plus(ownerLease.multipliedBy(2).dividedBy(3));
+    }
+
+    private boolean claimOwnership(Instant now) {
+        Integer claimed = transactionTemplate.execute(status -> {
+            if (!checkpointRepository.existsById(LedgerCheckpoint.SINGLETON_ID)) {
+                checkpointRepository.saveAndFlush(new LedgerCheckpoint(LedgerCheckpoint.SINGLETON_ID, instanceId, now));
+                return 1;
+            }
+            return checkpointRepository.claim(LedgerCheckpoint.SINGLETON_ID, instanceId, now, now.minus(ownerLease));
+        });
+        return claimed != null && claimed == 1;
+    }
+
+    /**
+     * Tant que le battement passe, le bail est prolongé. Une fois perdu, l'instance ne sert plus les produits chauds
+     * et tente de le reprendre à chaque passage ; repris, elle reporte le journal et recharge ses compteurs depuis la base,
+     * qui contient les mouvements faits entre-temps par l'autre instance.
+     */
+    private boolean renewOwnership() {
+        Instant now = Instant.now();
+        if (!leaseLost && now.isBefore(lastHeartbeat.plus(ownerLease.dividedBy(3)))) {
+            return true;
+        }
+        try {
+            if (!leaseLost) {
+                Integer renewed = transactionTemplate.execute(status ->
+                        checkpointRepository.heartbeat(LedgerCheckpoint.SINGLETON_ID, instanceId, now));
+                if (renewed != null && renewed == 1) {
+                    extendLease(now);
+                    return true;
+                }
+                leaseLost = true;
+                servingUntil = Instant.EPOCH;
+                log.error("Bail du stock en mémoire perdu au profit d'une autre instance : {} cesse de servir les produits chauds",
+                        instanceId);
+            }
+            if (!claimOwnership(now)) {
+                return false;
+            }
+            applyPendingEntries();
+            loadQuantities();
+            leaseLost = false;
+            extendLease(now);
+            log.warn("Bail du stock en mémoire repris par {}", instanceId);
+            return true;
+        } catch (RuntimeException e) {
+            // Base injoignable : sans battement, le service des produits chauds s'arrête de lui-même à échéance
+            log.error("Impossible de renouveler le bail du stock en mémoire", e);
+            return false;
+        }
+    }
+
+    private void loadQuantities() {
+        inventoryRepository.findAllByProductCodeIn(hotSkus).forEach(item -> quantities
+                .computeIfAbsent(item.getProductCode(), code -> new AtomicInteger())
+                .set(item.getQuantity()));
+    }
+
+    // Dans la transaction en cours s'il y en a une, sinon validé immédiatement
+    private void journal(String productCode, int delta) {
+        entryRepository.save(LedgerEntry.builder().productCode(productCode).delta(delta).build());
+    }
+
+    // Hors transaction, le mouvement est validé immédiatement
+    private void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCommit.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reporte le journal sur les lignes d'inventaire, un lot par transaction, et retourne le nombre d'entrées reportées.
+     */
+    private int applyPendingEntries() {
+        int total = 0;
+        int applied;
+        do {
+            Integer count = transactionTemplate.execute(status -> {
+                List<LedgerEntry> entries = entryRepository.findAllByOrderByIdAsc(PageRequest.of(0, flushBatchSize));
+                if (entries.isEmpty()) {
+                    return 0;
+                }
+                // Supprimées d'abord : une entrée déjà reportée par une autre transaction annule le lot
+                if (entryRepository.deleteByIdIn(entries.stream().map(LedgerEntry::getId).toList()) != entries.size()) {
+                    throw new IllegalStateException("Entrées du journal du stock reportées par une autre transaction");
+                }
+                Map<String, Integer> deltas = new TreeMap<>();
+                entries.forEach(entry -> deltas.merge(entry.getProductCode(), entry.getDelta(), Integer::sum));
+                deltas.forEach((productCode, delta) -> {
+                    if (delta != 0 && inventoryRepository.increment(productCode, delta) == 0) {
+                        log.warn("Produit {} absent de l'inventaire, mouvement de {} ignoré", productCode, delta);
+                    }
+                    stockThresholdService.evaluate(productCode);
+                });
+                return entries.size();
+            });
+            applied = count != null ? count : 0;
+            total += applied;
+        } while (applied == flushBatchSize);
+        return total;
+    }
+}
@@ -0,0 +1,67 @@
+package com.parashop.inventory_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parashop.inventory_service.dto.InventoryItemView;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Inventaire complet en NDJSON, lu par curseur : la mémoire utilisée ne dépend pas du nombre de produits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    public void exportNdjson(OutputStream out, String prefix, Integer minQuantity, Integer maxQuantity) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        String normalizedPrefix = prefix != null ? prefix : "";
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            int count = 0;
+            try (Stream<InventoryItemView> rows = inventoryRepository.streamAll(normalizedPrefix,
+                    InventoryService.likePattern(normalizedPrefix), minQuantity, maxQuantity,
+                    inventoryService.hotProductCodes())) {
+                Iterator<InventoryItemView> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    // Les produits chauds sont refiltrés sur leur quantité en mémoire
+                    InventoryItemView view = inventoryService.withLedgerQuantity(iterator.next());
+                    if (!InventoryService.inQuantityRange(view, minQuantity, maxQuantity)) {
+                        continue;
+                    }
+                    writer.write(objectMapper.writeValueAsString(view));
+                    writer.write('\n');
+                    if (++count % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Export de l'inventaire terminé: {} produits", count);
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.dto.StockAtTimeResponse;
+import com.parashop.inventory_service.model.InventoryMovement;
+import com.parashop.inventory_service.model.InventorySnapshot;
+import com.parashop.inventory_service.repository.InventoryMovementRepository;
+import com.parashop.inventory_service.repository.InventorySnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Historique des mouvements et photos périodiques du stock. La quantité à une date se calcule à partir
+ * de la dernière photo antérieure, plus les mouvements survenus depuis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final InventoryMovementRepository movementRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+
+    // Marge laissée aux transactions en cours pour que tous les mouvements avant la photo soient validés
+    @Value("${inventory.journal.snapshot-lag:1m}")
+    private Duration snapshotLag;
+
+    @Scheduled(fixedDelayString = "${inventory.journal.snapshot-interval:1h}",
+               initialDelayString = "${inventory.journal.snapshot-initial-delay:1m}")
+    public void takeSnapshots() {
+        // Les lignes des produits chauds doivent être à jour pour calculer leur solde d'ouverture
+        hotStockLedger.flush();
+
+        Instant cutoff = Instant.now().minus(snapshotLag);
+        transactionTemplate.executeWithoutResult(status -> {
+            int opened = snapshotRepository.insertOpeningBalances(Instant.EPOCH);
+            int taken = snapshotRepository.insertSnapshots(cutoff);
+            log.info("Photos du stock : {} soldes d'ouverture, {} nouvelles photos", opened, taken);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryMovement> getMovements(String productCode, Long beforeId, int size) {
+        PageRequest page = PageRequest.of(0, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        if (beforeId == null) {
+            return movementRepository.findByProductCodeOrderByIdDesc(productCode, page);
+        }
+        return movementRepository.findByProductCodeAndIdLessThanOrderByIdDesc(productCode, beforeId, page);
+    }
+
+    @Transactional(readOnly = true)
+    public StockAtTimeResponse getQuantityAt(String productCode, Instant at) {
+        Optional<InventorySnapshot> snapshot =
+                snapshotRepository.findFirstByProductCodeAndTakenAtLessThanEqualOrderByTakenAtDesc(productCode, at);
+        int base = snapshot.map(InventorySnapshot::getQuantity).orElse(0);
+        Instant from = snapshot.map(InventorySnapshot::getTakenAt).orElse(Instant.EPOCH);
+
+        long quantity = base + movementRepository.sumDeltas(productCode, from, at);
+        return new StockAtTimeResponse(productCode, at, (int) quantity,
+                snapshot.map(InventorySnapshot::getTakenAt).orElse(null));
+    }
+}
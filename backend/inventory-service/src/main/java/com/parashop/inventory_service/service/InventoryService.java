@@ -1,47 +1,317 @@
 package com.parashop.inventory_service.service;
 
+import com.parashop.inventory_service.dto.InventoryItemView;
+import com.parashop.inventory_service.dto.InventoryPageResponse;
 import com.parashop.inventory_service.dto.InventoryUpdateDto;
+import com.parashop.inventory_service.dto.StockReservationResponse;
+import com.parashop.inventory_service.event.StockChangedEvent;
 import com.parashop.inventory_service.model.InventoryItem;
+import com.parashop.inventory_service.model.InventoryMovement;
 import com.parashop.inventory_service.repository.InventoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final InventoryRepository inventoryRepository;
+    private final HotStockLedger hotStockLedger;
+    private final MovementJournal movementJournal;
+    private final StockThresholdService stockThresholdService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public boolean isInStock(String productCode, Integer quantity) {
+        if (hotStockLedger.isHot(productCode)) {
+            return hotStockLedger.getQuantity(productCode) >= quantity;
+        }
         return inventoryRepository.findByProductCode(productCode)
                 .map(item -> item.getQuantity() >= quantity)
                 .orElse(false);
     }
 
     public List<InventoryItem> getAllInventory() {
-        return inventoryRepository.findAll();
+        return inventoryRepository.findAll().stream()
+                .map(this::withLedgerQuantity)
+                .toList();
     }
 
+    @Transactional
     public InventoryItem updateInventory(InventoryUpdateDto updateDto) {
-        int totalQuantityToAdd = updateDto.getQuantity();
-        if ("CARTON".equalsIgnoreCase(updateDto.getUnit()) && updateDto.getPiecesPerCarton() != null) {
-            totalQuantityToAdd = updateDto.getQuantity() * updateDto.getPiecesPerCarton();
+        // Mise à jour atomique en base au lieu d'un lire-modifier-écrire qui perd des mises à jour
+        increment(updateDto.getProductCode(), toPieces(updateDto), restockType(updateDto), null);
+        return withLedgerQuantity(inventoryRepository.findByProductCode(updateDto.getProductCode()).orElseThrow());
+    }
+
+    /**
+     * Réserve la quantité si elle est disponible. Retourne false sans rien modifier sinon.
+     */
+    @Transactional
+    public boolean reserve(String productCode, Integer quantity) {
+        return reserve(productCode, quantity, null);
+    }
+
+    @Transactional
+    public boolean reserve(String productCode, Integer quantity, String reference) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La quantité à réserver doit être positive");
+        }
+        return decrementIfAvailable(productCode, quantity, InventoryMovement.ORDER_DECREMENT, reference);
+    }
+
+    /**
+     * Réserve toutes les lignes dans une seule transaction, ou aucune.
+     * Les lignes sont verrouillées dans l'ordre des codes produit pour éviter les interblocages.
+     */
+    @Transactional
+    public StockReservationResponse reserveAll(Map<String, Integer> items) {
+        return reserveAll(items, null);
+    }
+
+    @Transactional
+    public StockReservationResponse reserveAll(Map<String, Integer> items, String reference) {
+        Map<String, Integer> sortedItems = sortedQuantities(items);
+        for (Map.Entry<String, Integer> entry : sortedItems.entrySet()) {
+            if (!decrementIfAvailable(entry.getKey(), entry.getValue(), InventoryMovement.ORDER_DECREMENT, reference)) {
+                // On annule les décréments déjà faits dans cette transaction (y compris ceux tenus en mémoire)
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return new StockReservationResponse(false, List.of(entry.getKey()));
+            }
+        }
+        return new StockReservationResponse(true, List.of());
+    }
+
+    @Transactional
+    public void releaseAll(Map<String, Integer> items) {
+        releaseAll(items, InventoryMovement.CANCEL_RESTORE, null);
+    }
+
+    @Transactional
+    public void releaseAll(Map<String, Integer> items, String movementType, String reference) {
+        sortedQuantities(items).forEach((productCode, quantity) -> increment(productCode, quantity, movementType, reference));
+    }
+
+    /**
+     * Correction manuelle (inventaire physique, casse...). Une sortie n'est acceptée que si le stock la couvre.
+     */
+    @Transactional
+    public InventoryItem adjust(String productCode, int delta, String reason) {
+        if (delta > 0) {
+            increment(productCode, delta, InventoryMovement.ADJUSTMENT, reason);
+        } else if (delta < 0 && !decrementIfAvailable(productCode, -delta, InventoryMovement.ADJUSTMENT, reason)) {
+            throw new IllegalArgumentException("Stock insuffisant pour retirer " + (-delta) + " pièces de " + productCode);
         }
+        return withLedgerQuantity(inventoryRepository.findByProductCode(productCode)
+                .orElseThrow(() -> new IllegalArgumentException("Produit inconnu : " + productCode)));
+    }
 
-        InventoryItem item = inventoryRepository.findByProductCode(updateDto.getProductCode())
-                .orElse(InventoryItem.builder().productCode(updateDto.getProductCode()).quantity(0).build());
-        item.setQuantity(item.getQuantity() + totalQuantityToAdd);
-        return inventoryRepository.save(item);
+    @Transactional
+    public List<InventoryItem> updateInventoryBatch(List<InventoryUpdateDto> updateDtos) {
+        // Cumul par produit puis mises à jour dans l'ordre des codes pour un ordre de verrouillage stable
+        Map<String, Integer> deltas = new TreeMap<>();
+        updateDtos.forEach(updateDto -> deltas.merge(updateDto.getProductCode(), toPieces(updateDto), Integer::sum));
+
+        deltas.forEach(this::applyIncrement);
+        // Un mouvement par ligne reçue, pour garder l'unité d'origine (carton ou pièce)
+        updateDtos.forEach(updateDto -> movementJournal.record(
+                updateDto.getProductCode(), toPieces(updateDto), restockType(updateDto), null));
+        return inventoryRepository.findAllByProductCodeIn(deltas.keySet()).stream()
+                .map(this::withLedgerQuantity)
+                .toList();
     }
 
     @Transactional(readOnly = true)
     public Integer getQuantity(String productCode) {
+        if (hotStockLedger.isHot(productCode)) {
+            return hotStockLedger.getQuantity(productCode);
+        }
         return inventoryRepository.findByProductCode(productCode)
                 .map(InventoryItem::getQuantity)
                 .orElse(0);
     }
+
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getQuantities(List<String> productCodes) {
+        Map<String, Integer> quantities = new HashMap<>();
+        if (productCodes == null || productCodes.isEmpty()) {
+            return quantities;
+        }
+        // Les produits sans ligne d'inventaire sont renvoyés avec une quantité de 0
+        productCodes.forEach(code -> quantities.put(code, 0));
+        inventoryRepository.findAllByProductCodeIn(productCodes)
+                .forEach(item -> quantities.put(item.getProductCode(), item.getQuantity()));
+        quantities.replaceAll((code, quantity) -> hotStockLedger.isHot(code) ? hotStockLedger.getQuantity(code) : quantity);
+        return quantities;
+    }
+
+    /**
+     * Page de l'inventaire en projection légère, par ordre de code produit.
+     */
+    @Transactional(readOnly = true)
+    public InventoryPageResponse getInventoryPage(String afterProductCode, int size, String prefix,
+                                                  Integer minQuantity, Integer maxQuantity) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String normalizedPrefix = prefix != null ? prefix : "";
+        Set<String> hotCodes = hotProductCodes();
+        String cursor = afterProductCode != null ? afterProductCode : "";
+
+        // On cherche une ligne de plus que la page pour savoir s'il en reste. Un produit chaud hors bornes une fois
+        // sa quantité en mémoire appliquée est écarté : la lecture continue alors après la dernière ligne lue
+        List<InventoryItemView> items = new ArrayList<>();
+        boolean exhausted = false;
+        while (items.size() <= pageSize && !exhausted) {
+            List<InventoryItemView> rows = inventoryRepository.findPage(cursor, normalizedPrefix,
+                    likePattern(normalizedPrefix), minQuantity, maxQuantity, hotCodes, PageRequest.of(0, pageSize + 1));
+            exhausted = rows.size() <= pageSize;
+            if (!rows.isEmpty()) {
+                cursor = rows.get(rows.size() - 1).productCode();
+            }
+            rows.stream()
+                    .map(this::withLedgerQuantity)
+                    .filter(view -> inQuantityRange(view, minQuantity, maxQuantity))
+                    .forEach(items::add);
+        }
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? items.get(items.size() - 1).productCode() : null;
+        return new InventoryPageResponse(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Fixe le seuil de réapprovisionnement (null pour le retirer) et met l'indicateur à jour immédiatement.
+     */
+    @Transactional
+    public InventoryItem setReorderThreshold(String productCode, Integer threshold) {
+        if (threshold != null && threshold < 0) {
+            throw new IllegalArgumentException("Le seuil doit être positif");
+        }
+        if (inventoryRepository.updateReorderThreshold(productCode, threshold) == 0) {
+            throw new IllegalArgumentException("Produit inconnu : " + productCode);
+        }
+        stockThresholdService.evaluate(productCode);
+        return withLedgerQuantity(inventoryRepository.findByProductCode(productCode).orElseThrow());
+    }
+
+    /**
+     * Produits sous leur seuil, par ordre de code, lus par l'index (belowThreshold, productCode).
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryItem> getLowStock(String afterProductCode, int size) {
+        return inventoryRepository.findByBelowThresholdTrueAndProductCodeGreaterThanOrderByProductCodeAsc(
+                        afterProductCode != null ? afterProductCode : "",
+                        PageRequest.of(0, Math.min(Math.max(size, 1), MAX_PAGE_SIZE)))
+                .stream()
+                .map(this::withLedgerQuantity)
+                .toList();
+    }
+
+    private boolean decrementIfAvailable(String productCode, int quantity, String movementType, String reference) {
+        boolean hot = hotStockLedger.isHot(productCode);
+        boolean reserved = hot
+                ? hotStockLedger.reserve(productCode, quantity)
+                : inventoryRepository.decrementIfAvailable(productCode, quantity) == 1;
+        if (reserved) {
+            // Pour les produits chauds, le seuil est contrôlé quand le lot est écrit en base
+            if (!hot) {
+                stockThresholdService.afterDecrement(productCode);
+            }
+            movementJournal.record(productCode, -quantity, movementType, reference);
+            eventPublisher.publishEvent(StockChangedEvent.of(productCode));
+        }
+        return reserved;
+    }
+
+    private void increment(String productCode, int quantity, String movementType, String reference) {
+        applyIncrement(productCode, quantity);
+        movementJournal.record(productCode, quantity, movementType, reference);
+    }
+
+    private void applyIncrement(String productCode, int quantity) {
+        if (hotStockLedger.isHot(productCode)) {
+            hotStockLedger.add(productCode, quantity);
+        } else if (inventoryRepository.increment(productCode, quantity) == 0) {
+            inventoryRepository.save(InventoryItem.builder().productCode(productCode).quantity(quantity).build());
+        } else if (quantity < 0) {
+            // updateInventory reçoit aussi des corrections négatives (modification de la quantité d'un produit)
+            stockThresholdService.afterDecrement(productCode);
+        } else {
+            stockThresholdService.afterIncrement(productCode);
+        }
+        eventPublisher.publishEvent(StockChangedEvent.of(productCode));
+    }
+
+    Set<String> hotProductCodes() {
+        return hotStockLedger.getHotProductCodes();
+    }
+
+    static boolean inQuantityRange(InventoryItemView view, Integer minQuantity, Integer maxQuantity) {
+        return (minQuantity == null || view.quantity() >= minQuantity)
+                && (maxQuantity == null || view.quantity() <= maxQuantity);
+    }
+
+    static String likePattern(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    public InventoryItemView withLedgerQuantity(InventoryItemView view) {
+        return hotStockLedger.isHot(view.productCode())
+                ? view.withQuantity(hotStockLedger.getQuantity(view.productCode()))
+                : view;
+    }
+
+    // Pour les produits chauds, la ligne en base est en retard sur le compteur en mémoire
+    private InventoryItem withLedgerQuantity(InventoryItem item) {
+        if (!hotStockLedger.isHot(item.getProductCode())) {
+            return item;
+        }
+        return InventoryItem.builder()
+                .id(item.getId())
+                .productCode(item.getProductCode())
+                .quantity(hotStockLedger.getQuantity(item.getProductCode()))
+                .reorderThreshold(item.getReorderThreshold())
+                .belowThreshold(item.getBelowThreshold())
+                .build();
+    }
+
+    private Map<String, Integer> sortedQuantities(Map<String, Integer> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Aucun article à réserver");
+        }
+        items.forEach((productCode, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantité invalide pour le produit " + productCode);
+            }
+        });
+        return new TreeMap<>(items);
+    }
+
+    private String restockType(InventoryUpdateDto updateDto) {
+        return "CARTON".equalsIgnoreCase(updateDto.getUnit())
+                ? InventoryMovement.RESTOCK_CARTON
+                : InventoryMovement.RESTOCK_PIECE;
+    }
+
+    private int toPieces(InventoryUpdateDto updateDto) {
+        if ("CARTON".equalsIgnoreCase(updateDto.getUnit()) && updateDto.getPiecesPerCarton() != null) {
+            return updateDto.getQuantity() * updateDto.getPiecesPerCarton();
+        }
+        return updateDto.getQuantity();
+    }
 }
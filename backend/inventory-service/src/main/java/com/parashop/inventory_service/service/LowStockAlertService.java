@@ -0,0 +1,80 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.event.StockThresholdEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffusion en Server-Sent Events des franchissements de seuil de réapprovisionnement.
+ * Les envois passent par un thread dédié : un client lent ne ralentit jamais la requête qui a bougé le stock.
+ */
+@Service
+@Slf4j
+public class LowStockAlertService {
+
+    @Value("${inventory.stream.timeout:30m}")
+    private Duration timeout;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private ThreadPoolTaskExecutor alertExecutor;
+
+    @PostConstruct
+    void startExecutor() {
+        alertExecutor = new ThreadPoolTaskExecutor();
+        alertExecutor.setCorePoolSize(1);
+        alertExecutor.setMaxPoolSize(1);
+        alertExecutor.setQueueCapacity(10_000);
+        alertExecutor.setThreadNamePrefix("low-stock-alert-");
+        alertExecutor.initialize();
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        alertExecutor.shutdown();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThresholdCrossed(StockThresholdEvent event) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        try {
+            alertExecutor.execute(() -> broadcast(event));
+        } catch (TaskRejectedException e) {
+            log.warn("File des alertes de stock pleine, alerte {} perdue", event);
+        }
+    }
+
+    private void broadcast(StockThresholdEvent event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(event.below() ? "low-stock" : "restocked").data(event));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.model.InventoryMovement;
+import com.parashop.inventory_service.repository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal des mouvements de stock. Les mouvements d'une transaction sont accumulés puis insérés
+ * ensemble juste avant le commit ; ils disparaissent avec elle si elle est annulée.
+ */
+@Component
+@RequiredArgsConstructor
+public class MovementJournal {
+
+    private final InventoryMovementRepository movementRepository;
+
+    public void record(String productCode, int delta, String type, String reference) {
+        InventoryMovement movement = InventoryMovement.builder()
+                .productCode(productCode)
+                .delta(delta)
+                .type(type)
+                .reference(reference)
+                .occurredAt(Instant.now())
+                .build();
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            movementRepository.save(movement);
+            return;
+        }
+        currentBuffer().add(movement);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<InventoryMovement> currentBuffer() {
+        List<InventoryMovement> buffer = (List<InventoryMovement>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+        List<InventoryMovement> newBuffer = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, newBuffer);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                movementRepository.saveAll(newBuffer);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MovementJournal.this);
+            }
+        });
+        return newBuffer;
+    }
+}
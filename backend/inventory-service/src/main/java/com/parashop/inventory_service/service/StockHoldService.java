@@ -0,0 +1,256 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.dto.HoldRequest;
+import com.parashop.inventory_service.dto.HoldResponse;
+import com.parashop.inventory_service.dto.StockReservationResponse;
+import com.parashop.inventory_service.model.InventoryMovement;
+import com.parashop.inventory_service.model.StockHold;
+import com.parashop.inventory_service.repository.StockHoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Réservations de stock à durée limitée. Le stock est décrémenté à la pose de la réservation,
+ * définitivement acquis à la confirmation, et rendu à la libération ou à l'expiration.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldService {
+
+    private static final Set<String> ACTIVE = Set.of(StockHold.HELD, StockHold.CONFIRMED);
+
+    private final StockHoldRepository stockHoldRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.holds.default-ttl:30m}")
+    private Duration defaultTtl;
+
+    @Value("${inventory.holds.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    /**
+     * Idempotent par référence. Les lignes de la réservation sont insérées avant de toucher au stock :
+     * une requête concurrente pour la même référence bute sur la contrainte (reference, productCode)
+     * et renvoie la réservation déjà posée au lieu de décrémenter le stock une seconde fois.
+     */
+    public HoldResponse placeHold(HoldRequest request) {
+        if (request.getReference() == null || request.getReference().isBlank()) {
+            throw new IllegalArgumentException("La référence de la réservation est obligatoire");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("La réservation doit contenir au moins un produit");
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                List<StockHold> existing = stockHoldRepository.findByReferenceOrderByProductCodeAsc(request.getReference());
+                if (!existing.isEmpty()) {
+                    return toResponse(request.getReference(), existing);
+                }
+
+                Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultTtl;
+                Instant now = Instant.now();
+                List<StockHold> holds = stockHoldRepository.saveAllAndFlush(request.getItems().entrySet().stream()
+                        .map(entry -> StockHold.builder()
+                                .reference(request.getReference())
+                                .productCode(entry.getKey())
+                                .quantity(entry.getValue())
+                                .status(StockHold.HELD)
+                                .createdAt(now)
+                                .expiresAt(now.plus(ttl))
+                                .build())
+                        .toList());
+
+                StockReservationResponse reservation = inventoryService.reserveAll(request.getItems(), request.getReference());
+                if (!reservation.isReserved()) {
+                    status.setRollbackOnly();
+                    return new HoldResponse(request.getReference(), false, "REJECTED",
+                            reservation.getUnavailableProductCodes(), null);
+                }
+                return toResponse(request.getReference(), holds);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Posée entre-temps par une requête concurrente (renvoi après un délai dépassé côté commande)
+            log.info("Réservation {} déjà posée par une requête concurrente", request.getReference());
+            return transactionTemplate.execute(status -> toResponse(request.getReference(),
+                    stockHoldRepository.findByReferenceOrderByProductCodeAsc(request.getReference())));
+        }
+    }
+
+    @Transactional
+    public HoldResponse confirm(String reference) {
+        List<StockHold> holds = stockHoldRepository.findByReferenceOrderByProductCodeAsc(reference);
+        if (holds.isEmpty()) {
+            return notFound(reference);
+        }
+        if (holds.stream().anyMatch(hold -> !ACTIVE.contains(hold.getStatus()))) {
+            // Expirée ou libérée : le stock a déjà été rendu
+            return toResponse(reference, holds);
+        }
+        holds.forEach(hold -> hold.setStatus(StockHold.CONFIRMED));
+        return toResponse(reference, holds);
+    }
+
+    @Transactional
+    public HoldResponse release(String reference) {
+        List<StockHold> holds = stockHoldRepository.findByReferenceOrderByProductCodeAsc(reference);
+        if (holds.isEmpty()) {
+            return notFound(reference);
+        }
+        holds.stream()
+                .filter(hold -> ACTIVE.contains(hold.getStatus()))
+                .forEach(hold -> restore(hold, StockHold.RELEASED));
+        // Libérée maintenant ou déjà rendue (expirée, libérée) : dans tous les cas plus rien n'est retenu
+        HoldResponse response = toResponse(reference, holds);
+        response.setSuccess(true);
+        return response;
+    }
+
+    /**
+     * Rend le stock d'une commande passée avant les réservations. Les lignes sont enregistrées comme réservation
+     * libérée sous la référence de la commande : la contrainte (reference, productCode) garantit qu'un renvoi
+     * (réponse perdue, relais relancé) ne rend pas les quantités une seconde fois.
+     */
+    public HoldResponse restoreWithoutHold(String reference, Map<String, Integer> items) {
+        if (reference == null || reference.isBlank() || items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("La référence et les quantités à rendre sont obligatoires");
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                List<StockHold> existing = stockHoldRepository.findByReferenceOrderByProductCodeAsc(reference);
+                if (!existing.isEmpty()) {
+                    return restored(reference, existing);
+                }
+                Instant now = Instant.now();
+                List<StockHold> lines = stockHoldRepository.saveAllAndFlush(items.entrySet().stream()
+                        .map(entry -> StockHold.builder()
+                                .reference(reference)
+                                .productCode(entry.getKey())
+                                .quantity(entry.getValue())
+                                .status(StockHold.RELEASED)
+                                .createdAt(now)
+                                .expiresAt(now)
+                                .build())
+                        .toList());
+                inventoryService.releaseAll(items, InventoryMovement.CANCEL_RESTORE, reference);
+                return restored(reference, lines);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("Stock de la commande {} déjà rendu par une requête concurrente", reference);
+            return transactionTemplate.execute(status -> restored(reference,
+                    stockHoldRepository.findByReferenceOrderByProductCodeAsc(reference)));
+        }
+    }
+
+    private HoldResponse restored(String reference, List<StockHold> lines) {
+        HoldResponse response = toResponse(reference, lines);
+        response.setSuccess(true);
+        return response;
+    }
+
+    /**
+     * Fixe la quantité d'une ligne réservée : le complément est pris sur le stock, la différence y est rendue.
+     * La quantité visée est absolue, un renvoi de la même demande (réponse perdue, relais relancé) est donc sans effet.
+     */
+    @Transactional
+    public HoldResponse setQuantity(String reference, String productCode, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantité invalide pour le produit " + productCode);
+        }
+        List<StockHold> holds = stockHoldRepository.findByReferenceOrderByProductCodeAsc(reference);
+        if (holds.isEmpty()) {
+            return notFound(reference);
+        }
+        if (holds.stream().anyMatch(hold -> !ACTIVE.contains(hold.getStatus()))) {
+            return toResponse(reference, holds);
+        }
+
+        StockHold line = holds.stream()
+                .filter(hold -> hold.getProductCode().equals(productCode))
+                .findFirst()
+                .orElseGet(() -> {
+                    StockHold first = holds.get(0);
+                    return stockHoldRepository.save(StockHold.builder()
+                            .reference(reference)
+                            .productCode(productCode)
+                            .quantity(0)
+                            .status(first.getStatus())
+                            .createdAt(Instant.now())
+                            .expiresAt(first.getExpiresAt())
+                            .build());
+                });
+
+        int delta = quantity - line.getQuantity();
+        if (delta > 0) {
+            if (!inventoryService.reserve(productCode, delta, reference)) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return new HoldResponse(reference, false, "REJECTED", List.of(productCode), line.getExpiresAt());
+            }
+        } else if (delta < 0) {
+            inventoryService.releaseAll(Map.of(productCode, -delta), InventoryMovement.CANCEL_RESTORE, reference);
+        }
+        line.setQuantity(quantity);
+        return toResponse(reference, holds);
+    }
+
+    /**
+     * Rend le stock des réservations expirées, par lots, en suivant l'index (status, expiresAt).
+     */
+    @Scheduled(fixedDelayString = "${inventory.holds.sweep-interval:30s}")
+    public void releaseExpiredHolds() {
+        int released;
+        int total = 0;
+        do {
+            Integer count = transactionTemplate.execute(status -> {
+                List<StockHold> expired = stockHoldRepository.findByStatusAndExpiresAtBeforeOrderByExpiresAtAsc(
+                        StockHold.HELD, Instant.now(), PageRequest.of(0, sweepBatchSize));
+                expired.forEach(hold -> restore(hold, StockHold.EXPIRED));
+                return expired.size();
+            });
+            released = count != null ? count : 0;
+            total += released;
+        } while (released == sweepBatchSize);
+
+        if (total > 0) {
+            log.info("{} réservations expirées libérées", total);
+        }
+    }
+
+    private void restore(StockHold hold, String newStatus) {
+        if (hold.getQuantity() > 0) {
+            String movementType = StockHold.EXPIRED.equals(newStatus)
+                    ? InventoryMovement.HOLD_EXPIRED
+                    : InventoryMovement.CANCEL_RESTORE;
+            inventoryService.releaseAll(Map.of(hold.getProductCode(), hold.getQuantity()), movementType, hold.getReference());
+        }
+        hold.setStatus(newStatus);
+    }
+
+    private HoldResponse notFound(String reference) {
+        return new HoldResponse(reference, false, "NOT_FOUND", List.of(), null);
+    }
+
+    // success=false pour une réservation libérée ou expirée : son stock a déjà été rendu
+    private HoldResponse toResponse(String reference, List<StockHold> holds) {
+        String status = holds.get(0).getStatus();
+        Instant expiresAt = holds.stream().map(StockHold::getExpiresAt).min(Instant::compareTo).orElse(null);
+        boolean active = holds.stream().allMatch(hold -> ACTIVE.contains(hold.getStatus()));
+        return new HoldResponse(reference, active, status, List.of(), expiresAt);
+    }
+}
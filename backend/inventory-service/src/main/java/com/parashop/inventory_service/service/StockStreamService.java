@@ -0,0 +1,159 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.event.StockChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diffusion des changements de stock en Server-Sent Events.
+ * <p>
+ * Les changements sont accumulés par abonné et par produit, puis envoyés à intervalle régulier avec la
+ * quantité courante : plusieurs mouvements rapprochés sur un même produit ne donnent qu'un message.
+ * Un abonné lent n'a jamais plus d'un envoi en cours ; ses changements continuent de s'accumuler
+ * (au plus une entrée par produit) jusqu'à ce qu'il ait consommé le précédent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockStreamService {
+
+    private final InventoryService inventoryService;
+
+    @Value("${inventory.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${inventory.stream.sender-threads:4}")
+    private int senderThreads;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskExecutor sendExecutor;
+
+    @PostConstruct
+    void startExecutor() {
+        sendExecutor = new ThreadPoolTaskExecutor();
+        sendExecutor.setCorePoolSize(senderThreads);
+        sendExecutor.setMaxPoolSize(senderThreads);
+        sendExecutor.setQueueCapacity(1000);
+        sendExecutor.setThreadNamePrefix("stock-stream-");
+        sendExecutor.initialize();
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * @param productCodes produits suivis ; vide pour recevoir tous les changements
+     */
+    public SseEmitter subscribe(Set<String> productCodes) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, productCodes);
+        // Les quantités courantes des produits suivis sont envoyées au premier passage
+        subscriber.pending.addAll(productCodes);
+        subscribers.add(subscriber);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    // Après commit uniquement : un mouvement annulé n'est jamais diffusé
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            event.productCodes().stream()
+                    .filter(subscriber::follows)
+                    .forEach(subscriber.pending::add);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stream.coalesce-interval:250ms}")
+    public void flush() {
+        Map<Subscriber, Set<String>> batches = new HashMap<>();
+        Set<String> allCodes = new HashSet<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+                continue;
+            }
+            Set<String> codes = subscriber.drain();
+            batches.put(subscriber, codes);
+            allCodes.addAll(codes);
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        // Une seule lecture des quantités pour tous les abonnés
+        Map<String, Integer> quantities = inventoryService.getQuantities(new ArrayList<>(allCodes));
+        batches.forEach((subscriber, codes) -> {
+            Map<String, Integer> payload = new TreeMap<>();
+            codes.forEach(code -> payload.put(code, quantities.getOrDefault(code, 0)));
+            try {
+                sendExecutor.execute(() -> send(subscriber, payload));
+            } catch (TaskRejectedException e) {
+                // Tous les envoyeurs sont occupés : on réessaiera au prochain passage
+                subscriber.pending.addAll(codes);
+                subscriber.sending.set(false);
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void send(Subscriber subscriber, Map<String, Integer> payload) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().name("stock").data(payload));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Abonné au flux de stock déconnecté : {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> productCodes;
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<String> productCodes) {
+            this.emitter = emitter;
+            this.productCodes = Set.copyOf(productCodes);
+        }
+
+        private boolean follows(String productCode) {
+            return productCodes.isEmpty() || productCodes.contains(productCode);
+        }
+
+        private Set<String> drain() {
+            Set<String> drained = new HashSet<>();
+            for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+                drained.add(it.next());
+                it.remove();
+            }
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.event.StockThresholdEvent;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Détection incrémentale des franchissements de seuil : après chaque mouvement, une mise à jour
+ * conditionnelle sur la ligne déjà verrouillée bascule l'indicateur, sans jamais parcourir la table.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockThresholdService {
+
+    private final InventoryRepository inventoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void afterDecrement(String productCode) {
+        if (inventoryRepository.markBelowThreshold(productCode) == 1) {
+            eventPublisher.publishEvent(new StockThresholdEvent(productCode, true));
+        }
+    }
+
+    public void afterIncrement(String productCode) {
+        if (inventoryRepository.clearBelowThreshold(productCode) == 1) {
+            eventPublisher.publishEvent(new StockThresholdEvent(productCode, false));
+        }
+    }
+
+    // Sens du mouvement inconnu (changement de seuil, lot appliqué par le stock en mémoire)
+    public void evaluate(String productCode) {
+        afterDecrement(productCode);
+        afterIncrement(productCode);
+    }
+}
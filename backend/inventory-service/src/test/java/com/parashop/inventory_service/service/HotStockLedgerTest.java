@@ -0,0 +1,206 @@
+package com.parashop.inventory_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parashop.inventory_service.dto.InventoryItemView;
+import com.parashop.inventory_service.dto.InventoryPageResponse;
+import com.parashop.inventory_service.model.InventoryItem;
+import com.parashop.inventory_service.model.LedgerCheckpoint;
+import com.parashop.inventory_service.model.LedgerEntry;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import com.parashop.inventory_service.repository.LedgerCheckpointRepository;
+import com.parashop.inventory_service.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:ledger;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, HotStockLedger.class, MovementJournal.class, StockThresholdService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotStockLedgerTest {
+
+    private static final String PRODUCT_CODE = "PROMO_HOT";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MovementJournal movementJournal;
+
+    @Autowired
+    private InventoryService contextInventoryService;
+
+    @Test
+    void journalIsReplayedAfterCrash() throws Exception {
+        reset();
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(10).build());
+
+        HotStockLedger ledger = newLedger();
+        assertThat(ledger.reserve(PRODUCT_CODE, 4)).isTrue();
+        assertThat(ledger.reserve(PRODUCT_CODE, 7)).isFalse();
+        ledger.flush();
+        ledger.add(PRODUCT_CODE, 2);
+        assertThat(ledger.getQuantity(PRODUCT_CODE)).isEqualTo(8);
+        // Arrêt brutal : le dernier mouvement n'a pas été écrit en base
+        assertThat(inventoryRepository.findByProductCode(PRODUCT_CODE).orElseThrow().getQuantity()).isEqualTo(6);
+
+        HotStockLedger restarted = newLedger();
+        assertThat(restarted.getQuantity(PRODUCT_CODE)).isEqualTo(8);
+        assertThat(inventoryRepository.findByProductCode(PRODUCT_CODE).orElseThrow().getQuantity()).isEqualTo(8);
+    }
+
+    @Test
+    void rolledBackReservationIsNeitherJournaledNorLost() throws Exception {
+        reset();
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(10).build());
+
+        HotStockLedger ledger = newLedger();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(ledger.reserve(PRODUCT_CODE, 4)).isTrue();
+            assertThat(ledger.getQuantity(PRODUCT_CODE)).isEqualTo(6);
+            status.setRollbackOnly();
+        });
+        assertThat(ledger.getQuantity(PRODUCT_CODE)).isEqualTo(10);
+
+        // Arrêt brutal : le journal ne contient aucun décrément à rejouer
+        HotStockLedger restarted = newLedger();
+        assertThat(restarted.getQuantity(PRODUCT_CODE)).isEqualTo(10);
+        assertThat(inventoryRepository.findByProductCode(PRODUCT_CODE).orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void lostLeaseStopsServingUntilItIsReclaimed() throws Exception {
+        reset();
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(10).build());
+
+        HotStockLedger ledger = newLedger();
+        assertThat(ledger.reserve(PRODUCT_CODE, 1)).isTrue();
+        ledger.flush();
+
+        // Battement manqué : une autre instance a pris le bail et vendu 3 pièces, pas encore reportées
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.claim(
+                LedgerCheckpoint.SINGLETON_ID, "autre-instance", Instant.now(), Instant.now().plusSeconds(60)));
+        entryRepository.save(LedgerEntry.builder().productCode(PRODUCT_CODE).delta(-3).build());
+        ReflectionTestUtils.setField(ledger, "lastHeartbeat", Instant.EPOCH);
+        ledger.flush();
+
+        assertThatThrownBy(() -> ledger.reserve(PRODUCT_CODE, 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> ledger.add(PRODUCT_CODE, 1)).isInstanceOf(IllegalStateException.class);
+        assertThat(ledger.getQuantity(PRODUCT_CODE)).isEqualTo(9);
+        assertThat(entryRepository.count()).isEqualTo(1);
+
+        // L'autre instance s'arrête : le bail est repris, son journal reporté et les compteurs rechargés
+        transactionTemplate.executeWithoutResult(status ->
+                checkpointRepository.release(LedgerCheckpoint.SINGLETON_ID, "autre-instance"));
+        ledger.flush();
+
+        assertThat(entryRepository.count()).isZero();
+        assertThat(ledger.getQuantity(PRODUCT_CODE)).isEqualTo(6);
+        assertThat(ledger.reserve(PRODUCT_CODE, 6)).isTrue();
+        assertThat(ledger.reserve(PRODUCT_CODE, 1)).isFalse();
+        ledger.shutdown();
+    }
+
+    @Test
+    void secondInstanceRefusesToStartWhileTheLeaseIsHeld() throws Exception {
+        reset();
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(10).build());
+
+        HotStockLedger owner = newLedger();
+
+        assertThatThrownBy(() -> newLedger("autre-instance"))
+                .isInstanceOf(IllegalStateException.class);
+
+        owner.shutdown();
+        assertThat(newLedger("autre-instance").getQuantity(PRODUCT_CODE))
+                .isEqualTo(10);
+    }
+
+    @Test
+    void quantityRangeIsCheckedAgainstTheLedgerQuantity() throws Exception {
+        reset();
+        inventoryRepository.save(InventoryItem.builder().productCode("A_COLD").quantity(3).build());
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(10).build());
+        inventoryRepository.save(InventoryItem.builder().productCode("Z_COLD").quantity(20).build());
+        // Service du contexte, sans produit chaud : filtre en base seulement
+        assertThat(contextInventoryService.getInventoryPage(null, 10, null, 0, 5).getItems())
+                .extracting(InventoryItemView::productCode)
+                .containsExactly("A_COLD");
+
+        HotStockLedger ledger = newLedger();
+        // Non encore écrit en base : la ligne dit 10, le compteur 2
+        assertThat(ledger.reserve(PRODUCT_CODE, 8)).isTrue();
+        InventoryService inventoryService = new InventoryService(inventoryRepository, ledger, movementJournal,
+                new StockThresholdService(inventoryRepository, event -> { }), event -> { });
+
+        assertThat(inventoryService.getInventoryPage(null, 10, null, 0, 5).getItems())
+                .extracting(InventoryItemView::productCode, InventoryItemView::quantity)
+                .containsExactly(tuple("A_COLD", 3), tuple(PRODUCT_CODE, 2));
+
+        InventoryPageResponse page = inventoryService.getInventoryPage(null, 1, null, 5, null);
+        assertThat(page.getItems()).extracting(InventoryItemView::productCode).containsExactly("Z_COLD");
+        assertThat(page.isHasMore()).isFalse();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new InventoryExportService(inventoryRepository, inventoryService, transactionManager, new ObjectMapper())
+                .exportNdjson(out, null, 0, 5);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .hasSize(2)
+                .anySatisfy(line -> assertThat(line).contains(PRODUCT_CODE).contains("\"quantity\":2"));
+        ledger.shutdown();
+    }
+
+    private void reset() {
+        inventoryRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        entryRepository.deleteAll();
+    }
+
+    private HotStockLedger newLedger() {
+        return newLedger("instance-test");
+    }
+
+    private HotStockLedger newLedger(String instanceId) {
+        HotStockLedger ledger = new HotStockLedger(inventoryRepository, checkpointRepository, entryRepository,
+                transactionTemplate, new StockThresholdService(inventoryRepository, event -> { }));
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "hotSkus", Set.of(PRODUCT_CODE));
+        ReflectionTestUtils.setField(ledger, "flushBatchSize", 1000);
+        ReflectionTestUtils.setField(ledger, "instanceId", instanceId);
+        ReflectionTestUtils.setField(ledger, "ownerLease", Duration.ofSeconds(30));
+        ledger.init();
+        return ledger;
+    }
+}
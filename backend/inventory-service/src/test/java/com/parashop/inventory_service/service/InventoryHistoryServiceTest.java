@@ -0,0 +1,77 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.dto.InventoryUpdateDto;
+import com.parashop.inventory_service.model.InventoryMovement;
+import com.parashop.inventory_service.repository.InventoryMovementRepository;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import com.parashop.inventory_service.repository.InventorySnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:history;DB_CLOSE_DELAY=-1",
+        "inventory.journal.snapshot-lag=0s"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, HotStockLedger.class, MovementJournal.class, StockThresholdService.class,
+        InventoryHistoryService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryHistoryServiceTest {
+
+    private static final String PRODUCT_CODE = "HIST_001";
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryHistoryService inventoryHistoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @BeforeEach
+    void setUp() {
+        snapshotRepository.deleteAll();
+        movementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAll();
+    }
+
+    @Test
+    void quantityAtAnyTimeIsRebuiltFromSnapshotAndMovements() throws InterruptedException {
+        inventoryService.updateInventory(new InventoryUpdateDto(PRODUCT_CODE, 2, "CARTON", 12));
+        inventoryService.reserveAll(Map.of(PRODUCT_CODE, 5), "CMD-1");
+        inventoryHistoryService.takeSnapshots();
+        Thread.sleep(5);
+        Instant afterSnapshot = Instant.now();
+
+        inventoryService.releaseAll(Map.of(PRODUCT_CODE, 5));
+        inventoryService.adjust(PRODUCT_CODE, -3, "casse");
+
+        assertThat(inventoryHistoryService.getMovements(PRODUCT_CODE, null, 10))
+                .extracting(InventoryMovement::getType)
+                .containsExactly(InventoryMovement.ADJUSTMENT, InventoryMovement.CANCEL_RESTORE,
+                        InventoryMovement.ORDER_DECREMENT, InventoryMovement.RESTOCK_CARTON);
+        assertThat(inventoryHistoryService.getQuantityAt(PRODUCT_CODE, afterSnapshot).getQuantity()).isEqualTo(19);
+        assertThat(inventoryHistoryService.getQuantityAt(PRODUCT_CODE, Instant.now()).getQuantity())
+                .isEqualTo(inventoryService.getQuantity(PRODUCT_CODE))
+                .isEqualTo(21);
+    }
+}
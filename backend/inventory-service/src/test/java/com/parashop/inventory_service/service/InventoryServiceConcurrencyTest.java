@@ -0,0 +1,80 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.model.InventoryItem;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:inventory;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, HotStockLedger.class, MovementJournal.class, StockThresholdService.class})
+// Chaque réservation doit s'exécuter dans sa propre transaction, comme en production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceConcurrencyTest {
+
+    private static final String PRODUCT_CODE = "PROMO_001";
+    private static final int STOCK = 50;
+    private static final int BUYERS = 300;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(InventoryItem.builder().productCode(PRODUCT_CODE).quantity(STOCK).build());
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return inventoryService.reserve(PRODUCT_CODE, 1);
+            }));
+        }
+        start.countDown();
+
+        int reserved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(reserved).isEqualTo(STOCK);
+        assertThat(inventoryService.getQuantity(PRODUCT_CODE)).isZero();
+    }
+
+    @Test
+    void reservationLargerThanStockLeavesStockUntouched() {
+        assertThat(inventoryService.reserve(PRODUCT_CODE, STOCK + 1)).isFalse();
+        assertThat(inventoryService.getQuantity(PRODUCT_CODE)).isEqualTo(STOCK);
+    }
+}
@@ -0,0 +1,101 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.dto.HoldRequest;
+import com.parashop.inventory_service.dto.HoldResponse;
+import com.parashop.inventory_service.dto.InventoryUpdateDto;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import com.parashop.inventory_service.repository.StockHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:holds;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockHoldService.class, InventoryService.class, HotStockLedger.class, MovementJournal.class,
+        StockThresholdService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockHoldServiceTest {
+
+    private static final String PRODUCT_CODE = "HOLD_001";
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @BeforeEach
+    void setUp() {
+        stockHoldRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryService.updateInventory(new InventoryUpdateDto(PRODUCT_CODE, 100, "PIECE", null));
+    }
+
+    @Test
+    void concurrentHoldsForTheSameReferenceDecrementOnce() throws Exception {
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HoldResponse>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return stockHoldService.placeHold(new HoldRequest("CMD-1", Map.of(PRODUCT_CODE, 10), 600L));
+            }));
+        }
+        start.countDown();
+        for (Future<HoldResponse> result : results) {
+            assertThat(result.get().isSuccess()).isTrue();
+        }
+        executor.shutdown();
+
+        assertThat(inventoryService.getQuantity(PRODUCT_CODE)).isEqualTo(90);
+        assertThat(stockHoldRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void replayingAReleasedHoldIsNotASuccess() {
+        stockHoldService.placeHold(new HoldRequest("CMD-2", Map.of(PRODUCT_CODE, 10), 600L));
+        assertThat(stockHoldService.release("CMD-2").isSuccess()).isTrue();
+
+        HoldResponse replay = stockHoldService.placeHold(new HoldRequest("CMD-2", Map.of(PRODUCT_CODE, 10), 600L));
+
+        assertThat(replay.isSuccess()).isFalse();
+        assertThat(replay.getStatus()).isEqualTo("RELEASED");
+        assertThat(inventoryService.getQuantity(PRODUCT_CODE)).isEqualTo(100);
+    }
+
+    @Test
+    void restoringALegacyOrderTwiceRestoresOnce() {
+        stockHoldService.restoreWithoutHold("CMD-LEGACY", Map.of(PRODUCT_CODE, 7));
+        HoldResponse retry = stockHoldService.restoreWithoutHold("CMD-LEGACY", Map.of(PRODUCT_CODE, 7));
+
+        assertThat(retry.isSuccess()).isTrue();
+        assertThat(stockHoldService.release("CMD-LEGACY").getStatus()).isEqualTo("RELEASED");
+        assertThat(inventoryService.getQuantity(PRODUCT_CODE)).isEqualTo(107);
+    }
+}
@@ -0,0 +1,83 @@
+package com.parashop.inventory_service.service;
+
+import com.parashop.inventory_service.dto.InventoryUpdateDto;
+import com.parashop.inventory_service.event.StockThresholdEvent;
+import com.parashop.inventory_service.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:threshold;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, HotStockLedger.class, MovementJournal.class, StockThresholdService.class,
+        StockThresholdServiceTest.Events.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockThresholdServiceTest {
+
+    private static final String PRODUCT_CODE = "SEUIL_001";
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private Events events;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        inventoryService.updateInventory(new InventoryUpdateDto(PRODUCT_CODE, 20, "PIECE", null));
+        inventoryService.setReorderThreshold(PRODUCT_CODE, 10);
+        events.received.clear();
+    }
+
+    @Test
+    void negativeCorrectionThroughUpdateInventoryCrossesBelowThenRestockCrossesBack() {
+        inventoryService.updateInventory(new InventoryUpdateDto(PRODUCT_CODE, -12, "PIECE", null));
+
+        assertThat(inventoryRepository.findByProductCode(PRODUCT_CODE).orElseThrow().getBelowThreshold()).isTrue();
+        assertThat(events.received).containsExactly(new StockThresholdEvent(PRODUCT_CODE, true));
+
+        inventoryService.updateInventory(new InventoryUpdateDto(PRODUCT_CODE, 5, "PIECE", null));
+
+        assertThat(inventoryRepository.findByProductCode(PRODUCT_CODE).orElseThrow().getBelowThreshold()).isFalse();
+        assertThat(events.received).containsExactly(
+                new StockThresholdEvent(PRODUCT_CODE, true), new StockThresholdEvent(PRODUCT_CODE, false));
+    }
+
+    @Test
+    void reservationCrossesBelowAndReleaseCrossesBack() {
+        assertThat(inventoryService.reserveAll(Map.of(PRODUCT_CODE, 15), "CMD-1").isReserved()).isTrue();
+        inventoryService.reserveAll(Map.of(PRODUCT_CODE, 1), "CMD-2");
+        inventoryService.releaseAll(Map.of(PRODUCT_CODE, 16));
+
+        assertThat(events.received).containsExactly(
+                new StockThresholdEvent(PRODUCT_CODE, true), new StockThresholdEvent(PRODUCT_CODE, false));
+    }
+
+    static class Events {
+        final List<StockThresholdEvent> received = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void on(StockThresholdEvent event) {
+            received.add(event);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.parashop.order_service.client;
 
+import com.parashop.order_service.dto.HoldRequest;
+import com.parashop.order_service.dto.HoldResponse;
+import com.parashop.order_service.dto.StockReservationResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "inventory-service")
@@ -15,4 +20,33 @@ public interface InventoryClient {
 
     @PostMapping("/api/inventory/update")
     void updateInventory(@RequestBody Map<String, Object> updateDto);
+
+    @PostMapping("/api/inventory/reserve/batch")
+    StockReservationResponse reserveAll(@RequestBody Map<String, Integer> items);
+
+    @PostMapping("/api/inventory/release/batch")
+    void releaseAll(@RequestBody Map<String, Integer> items);
+
+    @PostMapping("/api/inventory/holds")
+    HoldResponse placeHold(@RequestBody HoldRequest request);
+
+    @PostMapping("/api/inventory/holds/batch")
+    List<HoldResponse> placeHolds(@RequestBody List<HoldRequest> requests);
+
+    @PostMapping("/api/inventory/holds/release/batch")
+    List<HoldResponse> releaseHolds(@RequestBody List<String> references);
+
+    @PostMapping("/api/inventory/holds/{reference}/confirm")
+    HoldResponse confirmHold(@PathVariable("reference") String reference);
+
+    @PostMapping("/api/inventory/holds/{reference}/release")
+    HoldResponse releaseHold(@PathVariable("reference") String reference);
+
+    @PostMapping("/api/inventory/holds/{reference}/restore")
+    HoldResponse restoreWithoutHold(@PathVariable("reference") String reference, @RequestBody Map<String, Integer> items);
+
+    // Quantité absolue de la ligne réservée : un renvoi ne prend ni ne rend rien une seconde fois
+    @PostMapping("/api/inventory/holds/{reference}/adjust")
+    HoldResponse setHoldQuantity(@PathVariable("reference") String reference,
+                                 @RequestParam String productCode, @RequestParam Integer quantity);
 }
@@ -3,12 +3,14 @@ package com.parashop.order_service.config;
 import com.parashop.order_service.model.Order;
 import com.parashop.order_service.model.OrderLineItems;
 import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.service.OrderStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,10 +19,17 @@ import java.util.UUID;
 public class DataInitializer {
 
     private final OrderRepository orderRepository;
+    private final OrderStatsService orderStatsService;
 
     @Bean
     public CommandLineRunner loadData() {
         return args -> {
+            // Commandes antérieures à l'ajout de createdAt : datées du jour, l'ordre par id départage ensuite
+            int backfilled = orderRepository.backfillCreatedAt(Instant.now());
+            if (backfilled > 0) {
+                System.out.println(backfilled + " orders backfilled with a creation date");
+            }
+
             if (orderRepository.count() == 0) {
                 OrderLineItems item1 = new OrderLineItems();
                 item1.setProductCode("DELL-XPS-15");
@@ -43,6 +52,9 @@ public class DataInitializer {
                 orderRepository.saveAll(List.of(order1, order2));
                 System.out.println("Test data inserted for order-service");
             }
+
+            // Premier démarrage avec les statistiques matérialisées : calcul initial depuis l'historique
+            orderStatsService.backfillIfEmpty();
         };
     }
 }
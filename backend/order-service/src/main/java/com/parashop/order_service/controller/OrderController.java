@@ -1,12 +1,25 @@
 package com.parashop.order_service.controller;
 
+import com.parashop.order_service.dto.AvailabilityResponse;
+import com.parashop.order_service.dto.OrderPageResponse;
+import com.parashop.order_service.dto.OrderPlacementResponse;
 import com.parashop.order_service.dto.OrderRequest;
 import com.parashop.order_service.dto.OrderResponse;
+import com.parashop.order_service.model.DailySalesStats;
+import com.parashop.order_service.model.ProductSalesStats;
+import com.parashop.order_service.model.UserOrderStats;
+import com.parashop.order_service.service.IdempotencyService;
+import com.parashop.order_service.service.OrderIngestionService;
 import com.parashop.order_service.service.OrderService;
+import com.parashop.order_service.service.OrderStatsService;
+import com.parashop.order_service.service.StockAvailabilityChecker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -15,19 +28,65 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderStatsService orderStatsService;
+    private final StockAvailabilityChecker stockAvailabilityChecker;
+    private final IdempotencyService idempotencyService;
+    private final OrderIngestionService orderIngestionService;
 
+    // 202 : la commande est enregistrée en PENDING_STOCK, la réservation du stock suit de manière asynchrone
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public String placeOrder(@RequestBody OrderRequest orderRequest) {
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderPlacementResponse placeOrder(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                             @RequestBody OrderRequest orderRequest) {
+        // Avec une clé, une nouvelle tentative du client renvoie le résultat de la première (ingestion groupée comprise)
+        if (idempotencyKey != null) {
+            return idempotencyService.placeOrder(idempotencyKey, orderRequest);
+        }
+        if (orderIngestionService.isEnabled()) {
+            return orderIngestionService.placeOrder(orderRequest);
+        }
         return orderService.placeOrder(orderRequest);
     }
 
+    // Vérifie toutes les lignes du panier en parallèle, sans réserver
+    @PostMapping("/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public AvailabilityResponse checkAvailability(@RequestBody OrderRequest orderRequest) {
+        return orderService.checkAvailability(orderRequest);
+    }
+
+    @GetMapping("/availability/latency")
+    @ResponseStatus(HttpStatus.OK)
+    public java.util.Map<String, java.util.Map<String, Object>> getAvailabilityLatency() {
+        return stockAvailabilityChecker.getLatencyStats();
+    }
+
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public List<OrderResponse> getAllOrders() {
         return orderService.getAllOrders();
     }
 
+    // Pages suivantes : repasser nextCreatedAt et nextId dans beforeCreatedAt et beforeId
+    @GetMapping("/history")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderPageResponse getOrderHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return orderService.getOrderPage(null, beforeCreatedAt, beforeId, size);
+    }
+
+    @GetMapping("/history/{username}")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderPageResponse getUserOrderHistory(
+            @PathVariable String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return orderService.getOrderPage(username, beforeCreatedAt, beforeId, size);
+    }
+
     @GetMapping("/{username}")
     @ResponseStatus(HttpStatus.OK)
     public List<OrderResponse> getOrdersByUsername(@PathVariable String username) {
@@ -46,8 +105,9 @@ public class OrderController {
         orderService.cancelOrder(id);
     }
 
+    // 202 : la ligne est modifiée une fois la réservation ajustée par l'inventaire
     @PutMapping("/{id}/item")
-    @ResponseStatus(HttpStatus.OK)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     public void updateOrderItem(@PathVariable Long id, @RequestParam String productCode, @RequestParam Integer quantity) {
         orderService.updateOrderQuantity(id, productCode, quantity);
     }
@@ -57,4 +117,28 @@ public class OrderController {
     public List<java.util.Map<String, Object>> getUserStats() {
         return orderService.getUserStats();
     }
+
+    // sort=orders (défaut) ou revenue
+    @GetMapping("/stats/users")
+    @ResponseStatus(HttpStatus.OK)
+    public List<UserOrderStats> getTopUsers(@RequestParam(defaultValue = "orders") String sort,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        return orderStatsService.getTopUsers(sort, limit);
+    }
+
+    // sort=quantity (défaut) ou revenue
+    @GetMapping("/stats/products")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductSalesStats> getTopProducts(@RequestParam(defaultValue = "quantity") String sort,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        return orderStatsService.getTopProducts(sort, limit);
+    }
+
+    @GetMapping("/stats/daily")
+    @ResponseStatus(HttpStatus.OK)
+    public List<DailySalesStats> getDailySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return orderStatsService.getDailySales(from, to);
+    }
 }
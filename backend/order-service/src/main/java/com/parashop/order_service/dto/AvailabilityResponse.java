@@ -0,0 +1,17 @@
+package com.parashop.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityResponse {
+    private boolean available;
+    private List<String> unavailableProductCodes;
+    private boolean timedOut; // délai de vérification dépassé : disponibilité inconnue
+    private long elapsedMs;
+}
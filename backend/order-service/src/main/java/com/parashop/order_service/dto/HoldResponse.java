@@ -0,0 +1,19 @@
+package com.parashop.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldResponse {
+    private String reference;
+    private boolean success;
+    private String status; // HELD, CONFIRMED, RELEASED, EXPIRED, REJECTED, NOT_FOUND
+    private List<String> unavailableProductCodes;
+    private Instant expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.parashop.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> items;
+    // Curseur de la page suivante (beforeCreatedAt + beforeId), null si dernière page
+    private Instant nextCreatedAt;
+    private Long nextId;
+    private boolean hasMore;
+}
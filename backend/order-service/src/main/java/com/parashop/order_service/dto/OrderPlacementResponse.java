@@ -0,0 +1,19 @@
+package com.parashop.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPlacementResponse {
+    private String orderNumber;
+    private String status; // PENDING_STOCK : le stock est réservé ensuite, la commande peut encore passer en REJECTED
+    private String message;
+
+    public static OrderPlacementResponse pendingStock(String orderNumber) {
+        return new OrderPlacementResponse(orderNumber, "PENDING_STOCK",
+                "Commande enregistrée, réservation du stock en cours");
+    }
+}
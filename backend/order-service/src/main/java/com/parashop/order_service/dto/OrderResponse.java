@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -14,5 +15,6 @@ public class OrderResponse {
     private String orderNumber;
     private String username;
     private String status;
+    private Instant createdAt;
     private List<OrderLineItemsResponse> orderLineItemsList;
 }
@@ -0,0 +1,18 @@
+package com.parashop.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockCommand {
+    private String reference;
+    private Map<String, Integer> items;
+    private Long ttlSeconds;
+    // Commande antérieure aux réservations : la libération rend directement les quantités
+    private boolean legacy;
+}
@@ -0,0 +1,18 @@
+package com.parashop.order_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Commande encore dans la file d'écriture au délai d'attente : elle peut toujours être enregistrée sous ce numéro,
+ * que le client retrouve dans son historique au lieu de repasser la commande.
+ */
+@Getter
+public class OrderStillPendingException extends RuntimeException {
+
+    private final String orderNumber;
+
+    public OrderStillPendingException(String orderNumber) {
+        super("Enregistrement de la commande " + orderNumber + " toujours en cours");
+        this.orderNumber = orderNumber;
+    }
+}
@@ -0,0 +1,27 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventes par jour de création de la commande (UTC) : une annulation est retirée du jour où la commande a été passée.
+ */
+@Entity
+@Table(name = "daily_sales_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesStats {
+    @Id
+    private LocalDate salesDate;
+    private Long orderCount;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
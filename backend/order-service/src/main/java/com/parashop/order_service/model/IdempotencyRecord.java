@@ -0,0 +1,34 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Résultat d'une commande passée avec une clé d'idempotence, enregistré dans la transaction de la commande.
+ * Une nouvelle tentative avec la même clé renvoie ce résultat au lieu de repasser la commande.
+ */
+@Entity
+@Table(name = "t_idempotency_keys", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 100)
+    private String idempotencyKey;
+    @Column(length = 64)
+    private String requestHash; // SHA-256 du corps de la requête
+    private String orderNumber;
+    @Column(length = 1000)
+    private String response;
+    private Instant createdAt;
+    private Instant expiresAt;
+}
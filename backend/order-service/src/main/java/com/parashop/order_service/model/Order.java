@@ -5,11 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
+import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "t_orders")
+@Table(name = "t_orders", indexes = {
+        @Index(name = "idx_orders_username_created", columnList = "username, createdAt, id"),
+        @Index(name = "idx_orders_created", columnList = "createdAt, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +25,17 @@ public class Order {
     private Long id;
     private String orderNumber;
     private String username;
-    private String status; // PENDING_VALIDATION, VALIDATED, CANCELLED
+    private String status; // PENDING_VALIDATION, VALIDATED, CANCELLED, EXPIRED
+    private Instant createdAt;
+    // Les lignes d'une page de commandes sont chargées en une requête au lieu d'une par commande
     @OneToMany(cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
     private List<OrderLineItems> orderLineItemsList;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
 }
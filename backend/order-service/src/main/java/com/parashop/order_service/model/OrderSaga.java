@@ -0,0 +1,38 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * État de la réservation de stock d'une commande, vu depuis order-service.
+ */
+@Entity
+@Table(name = "t_order_sagas", uniqueConstraints = @UniqueConstraint(name = "uk_saga_order_number", columnNames = "orderNumber"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSaga {
+    public static final String STOCK_PENDING = "STOCK_PENDING";
+    public static final String STOCK_RESERVED = "STOCK_RESERVED";
+    public static final String REJECTED = "REJECTED";
+    public static final String RELEASE_PENDING = "RELEASE_PENDING";
+    public static final String RELEASED = "RELEASED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String orderNumber;
+    private String state;
+    @Column(length = 1000)
+    private String lastError;
+    private Instant updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Commande à destination de l'inventaire, écrite dans la même transaction que la commande client
+ * puis envoyée par le relais. Rien n'est perdu si l'inventaire est indisponible au moment de la commande.
+ */
+@Entity
+@Table(name = "t_outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_aggregate", columnList = "aggregateId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    public static final String RESERVE_STOCK = "RESERVE_STOCK";
+    public static final String RELEASE_STOCK = "RELEASE_STOCK";
+    public static final String ADJUST_HOLD = "ADJUST_HOLD";
+
+    public static final String PENDING = "PENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String aggregateId; // numéro de commande
+    private String type; // RESERVE_STOCK, RELEASE_STOCK, ADJUST_HOLD
+    @Column(columnDefinition = "text")
+    private String payload; // StockCommand en JSON
+    private String status; // PENDING, SENT, FAILED
+    private Integer attempts;
+    private Instant nextAttemptAt;
+    private Instant createdAt;
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,27 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "product_sales_stats", indexes = {
+        @Index(name = "idx_product_stats_quantity", columnList = "quantitySold"),
+        @Index(name = "idx_product_stats_revenue", columnList = "revenue")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesStats {
+    @Id
+    private String productCode;
+    private Long orderCount; // commandes contenant le produit
+    private Long quantitySold;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,30 @@
+package com.parashop.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Agrégats par client, tenus à jour à chaque changement de commande. Les commandes annulées ou expirées
+ * n'y sont pas comptées.
+ */
+@Entity
+@Table(name = "user_order_stats", indexes = {
+        @Index(name = "idx_user_stats_orders", columnList = "orderCount"),
+        @Index(name = "idx_user_stats_revenue", columnList = "revenue")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStats {
+    @Id
+    private String username;
+    private Long orderCount;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,26 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.DailySalesStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesStatsRepository extends JpaRepository<DailySalesStats, LocalDate> {
+
+    List<DailySalesStats> findBySalesDateBetweenOrderBySalesDateAsc(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into daily_sales_stats (sales_date, order_count, revenue) " +
+                   "select d.sales_date, count(*), sum(d.revenue) from (" +
+                   "select cast(o.created_at at time zone 'UTC' as date) as sales_date, " +
+                   "coalesce((select sum(li.price * li.quantity) from t_orders_order_line_items_list j " +
+                   "join t_order_line_items li on li.id = j.order_line_items_list_id where j.order_id = o.id), 0) as revenue " +
+                   "from t_orders o " +
+                   "where o.created_at is not null and coalesce(o.status, '') not in ('CANCELLED', 'EXPIRED', 'REJECTED')) d " +
+                   "group by d.sales_date",
+           nativeQuery = true)
+    int backfill();
+}
@@ -0,0 +1,33 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Insertion stricte : une clé déjà prise par une requête concurrente lève une violation de clé primaire
+    // (save() ferait un merge et écraserait l'enregistrement de l'autre requête)
+    @Modifying
+    @Query(value = "insert into t_idempotency_keys (idempotency_key, request_hash, order_number, response, created_at, expires_at) " +
+                   "values (:key, :requestHash, :orderNumber, :response, :createdAt, :expiresAt)",
+           nativeQuery = true)
+    int insert(@Param("key") String key,
+               @Param("requestHash") String requestHash,
+               @Param("orderNumber") String orderNumber,
+               @Param("response") String response,
+               @Param("createdAt") Instant createdAt,
+               @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.expiresAt <= :now")
+    int deleteExpired(@Param("key") String key, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
@@ -1,7 +1,53 @@
 package com.parashop.order_service.repository;
 
 import com.parashop.order_service.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    List<Order> findByUsernameOrderByCreatedAtDescIdDesc(String username, Pageable pageable);
+
+    List<Order> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    // Pages suivantes par clé (createdAt, id) décroissante ; la borne "createdAt <=" garde un parcours d'index borné
+    @Query("select o from Order o where o.username = :username and o.createdAt <= :beforeCreatedAt " +
+           "and (o.createdAt < :beforeCreatedAt or o.id < :beforeId) " +
+           "order by o.createdAt desc, o.id desc")
+    List<Order> findByUsernameBefore(@Param("username") String username,
+                                     @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                     @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    @Query("select o from Order o where o.createdAt <= :beforeCreatedAt " +
+           "and (o.createdAt < :beforeCreatedAt or o.id < :beforeId) " +
+           "order by o.createdAt desc, o.id desc")
+    List<Order> findAllBefore(@Param("beforeCreatedAt") Instant beforeCreatedAt,
+                              @Param("beforeId") Long beforeId,
+                              Pageable pageable);
+
+    Optional<Order> findByOrderNumber(String orderNumber);
+
+    List<Order> findByOrderNumberIn(Collection<String> orderNumbers);
+
+    // Transition conditionnelle : sans effet si la commande a changé d'état entre-temps (annulation)
+    @Modifying
+    @Query("update Order o set o.status = :newStatus where o.orderNumber = :orderNumber and o.status = :expectedStatus")
+    int updateStatusIf(@Param("orderNumber") String orderNumber,
+                       @Param("expectedStatus") String expectedStatus,
+                       @Param("newStatus") String newStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.createdAt = :createdAt where o.createdAt is null")
+    int backfillCreatedAt(@Param("createdAt") Instant createdAt);
 }
@@ -0,0 +1,14 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.OrderSaga;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderSagaRepository extends JpaRepository<OrderSaga, Long> {
+    Optional<OrderSaga> findByOrderNumber(String orderNumber);
+
+    List<OrderSaga> findByOrderNumberIn(Collection<String> orderNumbers);
+}
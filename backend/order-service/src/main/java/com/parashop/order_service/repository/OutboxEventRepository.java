@@ -0,0 +1,29 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED : plusieurs instances du relais se partagent les événements sans se bloquer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<OutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(String status, Instant now, Pageable pageable);
+
+    List<OutboxEvent> findByAggregateIdAndTypeAndIdGreaterThan(String aggregateId, String type, Long id);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.status = :status and e.createdAt < :before")
+    int deleteByStatusAndCreatedAtBefore(@Param("status") String status, @Param("before") Instant before);
+}
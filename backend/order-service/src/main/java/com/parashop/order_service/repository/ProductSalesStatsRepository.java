@@ -0,0 +1,27 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.ProductSalesStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProductSalesStatsRepository extends JpaRepository<ProductSalesStats, String> {
+
+    List<ProductSalesStats> findAllByOrderByQuantitySoldDesc(Pageable pageable);
+
+    List<ProductSalesStats> findAllByOrderByRevenueDesc(Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into product_sales_stats (product_code, order_count, quantity_sold, revenue) " +
+                   "select li.product_code, count(distinct o.id), sum(li.quantity), sum(li.price * li.quantity) " +
+                   "from t_orders o " +
+                   "join t_orders_order_line_items_list j on j.order_id = o.id " +
+                   "join t_order_line_items li on li.id = j.order_line_items_list_id " +
+                   "where li.product_code is not null and coalesce(o.status, '') not in ('CANCELLED', 'EXPIRED', 'REJECTED') " +
+                   "group by li.product_code",
+           nativeQuery = true)
+    int backfill();
+}
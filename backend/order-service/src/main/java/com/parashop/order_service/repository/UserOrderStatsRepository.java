@@ -0,0 +1,29 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.UserOrderStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, String> {
+
+    List<UserOrderStats> findAllByOrderByOrderCountDesc(Pageable pageable);
+
+    List<UserOrderStats> findAllByOrderByRevenueDesc(Pageable pageable);
+
+    List<UserOrderStats> findAllByOrderByOrderCountDescUsernameAsc();
+
+    @Modifying
+    @Query(value = "insert into user_order_stats (username, order_count, revenue) " +
+                   "select o.username, count(distinct o.id), coalesce(sum(li.price * li.quantity), 0) " +
+                   "from t_orders o " +
+                   "left join t_orders_order_line_items_list j on j.order_id = o.id " +
+                   "left join t_order_line_items li on li.id = j.order_line_items_list_id " +
+                   "where o.username is not null and coalesce(o.status, '') not in ('CANCELLED', 'EXPIRED', 'REJECTED') " +
+                   "group by o.username",
+           nativeQuery = true)
+    int backfill();
+}
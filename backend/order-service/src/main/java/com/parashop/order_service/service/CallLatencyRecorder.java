@@ -0,0 +1,63 @@
+package com.parashop.order_service.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latences des appels sortants, sur une fenêtre glissante des derniers appels par opération.
+ */
+@Component
+public class CallLatencyRecorder {
+
+    private static final int WINDOW = 1024;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public void record(String operation, long nanos) {
+        windows.computeIfAbsent(operation, name -> new Window()).add(nanos);
+    }
+
+    /**
+     * Par opération : nombre d'appels mesurés et percentiles p50, p99 et max en millisecondes.
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        windows.forEach((operation, window) -> result.put(operation, window.stats()));
+        return result;
+    }
+
+    private static final class Window {
+        private final long[] samples = new long[WINDOW];
+        private long count;
+
+        synchronized void add(long nanos) {
+            samples[(int) (count % WINDOW)] = nanos;
+            count++;
+        }
+
+        synchronized Map<String, Object> stats() {
+            int size = (int) Math.min(count, WINDOW);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", count);
+            stats.put("p50Ms", percentileMillis(sorted, 0.50));
+            stats.put("p99Ms", percentileMillis(sorted, 0.99));
+            stats.put("maxMs", size > 0 ? sorted[size - 1] / 1_000_000.0 : 0.0);
+            return stats;
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.parashop.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parashop.order_service.dto.OrderPlacementResponse;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.IdempotencyRecord;
+import com.parashop.order_service.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Commandes passées avec l'en-tête Idempotency-Key : une nouvelle tentative renvoie le résultat de la première
+ * sans recréer de commande ni toucher au stock. Les doublons simultanés sur cette instance attendent la requête
+ * déjà en cours ; entre instances, c'est la clé primaire de t_idempotency_keys qui tranche.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderService orderService;
+    private final OrderIngestionService orderIngestionService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${order.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${order.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    // Requêtes en cours, par clé : les doublons se greffent sur la première
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    // Résultats récents, pour répondre aux nouvelles tentatives sans lire la base
+    private Map<String, IdempotencyRecord> recent;
+
+    @PostConstruct
+    void initCache() {
+        recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public OrderPlacementResponse placeOrder(String idempotencyKey, OrderRequest orderRequest) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence invalide (1 à " + MAX_KEY_LENGTH + " caractères)");
+        }
+        String requestHash = hash(orderRequest);
+
+        IdempotencyRecord cached = recent.get(idempotencyKey);
+        if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> first = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (first != null) {
+            return replay(await(first), requestHash);
+        }
+
+        try {
+            IdempotencyRecord record = execute(idempotencyKey, requestHash, orderRequest);
+            recent.put(idempotencyKey, record);
+            mine.complete(record);
+            return replay(record, requestHash);
+        } catch (RuntimeException e) {
+            // Les doublons en attente reçoivent la même erreur ; la clé reste libre pour une nouvelle tentative
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    private IdempotencyRecord execute(String idempotencyKey, String requestHash, OrderRequest orderRequest) {
+        IdempotencyRecord stored = findValid(idempotencyKey);
+        if (stored != null) {
+            return stored;
+        }
+        Instant now = Instant.now();
+        IdempotencyRecord claim = IdempotencyRecord.builder()
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .expiresAt(now.plus(ttl))
+                .build();
+        try {
+            // La clé est écrite avec la commande, dans le même lot quand l'ingestion groupée est active
+            return orderIngestionService.isEnabled()
+                    ? orderIngestionService.placeOrder(orderRequest, claim)
+                    : orderService.placeOrder(orderRequest, claim);
+        } catch (DataIntegrityViolationException e) {
+            // Même clé traitée au même moment par une autre instance : sa commande fait foi
+            stored = findValid(idempotencyKey);
+            if (stored == null) {
+                throw e;
+            }
+            log.info("Commande en double écartée pour la clé d'idempotence {}", idempotencyKey);
+            return stored;
+        }
+    }
+
+    private IdempotencyRecord findValid(String idempotencyKey) {
+        return transactionTemplate.execute(status -> idempotencyRecordRepository.findById(idempotencyKey)
+                .filter(record -> record.getExpiresAt().isAfter(Instant.now()))
+                .orElse(null));
+    }
+
+    private OrderPlacementResponse replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Cette clé d'idempotence a déjà servi pour une autre commande");
+        }
+        // Même numéro de commande qu'à la première réponse : le client suit le statut réel dans son historique
+        return OrderPlacementResponse.pendingStock(record.getOrderNumber());
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> first) {
+        try {
+            return first.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("La commande d'origine a échoué", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Une commande avec cette clé d'idempotence est toujours en cours");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de la commande d'origine interrompue");
+        }
+    }
+
+    private String hash(OrderRequest orderRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(orderRequest)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Impossible de calculer l'empreinte de la commande", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        Integer purged = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteAllExpired(now));
+        synchronized (recent) {
+            recent.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+        }
+        if (purged != null && purged > 0) {
+            log.info("{} clés d'idempotence expirées purgées", purged);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.OrderPlacementResponse;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.exception.OrderStillPendingException;
+import com.parashop.order_service.model.IdempotencyRecord;
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderLineItems;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Mode d'ingestion pour les ventes flash (order.ingestion.group-commit) : les commandes reçues sont mises en file
+ * et un rédacteur unique les enregistre par lots, une transaction et des inserts JDBC groupés par lot au lieu
+ * d'une transaction et de plusieurs allers-retours par commande. Chaque appelant reçoit sa réponse au commit du lot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIngestionService {
+
+    private final OrderService orderService;
+    private final OrderStatsService orderStatsService;
+    private final OutboxService outboxService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.ingestion.group-commit:false}")
+    private boolean enabled;
+
+    @Value("${order.ingestion.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${order.ingestion.linger:5ms}")
+    private Duration linger;
+
+    @Value("${order.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order.ingestion.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    private BlockingQueue<PendingOrder> queue;
+    private ThreadPoolTaskExecutor writerExecutor;
+    private volatile boolean running;
+
+    // claim : clé d'idempotence à écrire avec la commande, null sans en-tête Idempotency-Key
+    private record PendingOrder(OrderRequest request, String orderNumber, IdempotencyRecord claim,
+                                CompletableFuture<OrderPlacementResponse> result) {
+    }
+
+    @PostConstruct
+    void startWriter() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writerExecutor = new ThreadPoolTaskExecutor();
+        writerExecutor.setCorePoolSize(1);
+        writerExecutor.setMaxPoolSize(1);
+        writerExecutor.setThreadNamePrefix("order-writer-");
+        // À l'arrêt, les commandes déjà en file sont écrites avant de fermer
+        writerExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        writerExecutor.setAwaitTerminationSeconds((int) Math.max(1, waitTimeout.toSeconds()));
+        writerExecutor.initialize();
+        running = true;
+        writerExecutor.execute(this::writeLoop);
+        log.info("Ingestion groupée des commandes activée (lots de {} au plus, attente {} ms)",
+                maxBatchSize, linger.toMillis());
+    }
+
+    @PreDestroy
+    void stopWriter() {
+        if (writerExecutor == null) {
+            return;
+        }
+        running = false;
+        writerExecutor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OrderPlacementResponse placeOrder(OrderRequest orderRequest) {
+        return await(enqueue(orderRequest, UUID.randomUUID().toString(), null));
+    }
+
+    /**
+     * Commande avec clé d'idempotence : la clé est insérée dans le lot de la commande. Une clé déjà prise fait
+     * échouer le lot, puis la commande repassée seule, avec une violation de clé primaire que l'appelant traite.
+     */
+    public IdempotencyRecord placeOrder(OrderRequest orderRequest, IdempotencyRecord claim) {
+        claim.setOrderNumber(UUID.randomUUID().toString());
+        claim.setResponse(OrderPlacementResponse.pendingStock(claim.getOrderNumber()).getMessage());
+        claim.setCreatedAt(Instant.now());
+        await(enqueue(orderRequest, claim.getOrderNumber(), claim));
+        return claim;
+    }
+
+    private PendingOrder enqueue(OrderRequest orderRequest, String orderNumber, IdempotencyRecord claim) {
+        PendingOrder pending = new PendingOrder(orderRequest, orderNumber, claim, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Trop de commandes en attente, réessayez dans un instant");
+        }
+        return pending;
+    }
+
+    private OrderPlacementResponse await(PendingOrder pending) {
+        try {
+            return pending.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Enregistrement de la commande échoué", e.getCause());
+        } catch (TimeoutException e) {
+            // La commande peut encore être enregistrée : le client la retrouve par son numéro avant de réessayer
+            throw new OrderStillPendingException(pending.orderNumber());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de l'enregistrement interrompue");
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // On laisse au lot le temps de se remplir, sans jamais attendre plus que linger
+                long deadline = System.nanoTime() + linger.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue du rédacteur de commandes", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingOrder> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertOrders(batch));
+            batch.forEach(pending -> pending.result().complete(
+                    OrderPlacementResponse.pendingStock(pending.orderNumber())));
+        } catch (RuntimeException e) {
+            // Une commande invalide ne doit pas faire échouer tout le lot : on repasse chacune seule
+            log.warn("Lot de {} commandes rejeté ({}), enregistrement commande par commande", batch.size(), e.getMessage());
+            for (PendingOrder pending : batch) {
+                try {
+                    // Même numéro que celui déjà promis à l'appelant
+                    if (pending.claim() != null) {
+                        orderService.placeOrder(pending.request(), pending.claim());
+                        pending.result().complete(OrderPlacementResponse.pendingStock(pending.orderNumber()));
+                    } else {
+                        pending.result().complete(orderService.placeOrder(pending.orderNumber(), pending.request()));
+                    }
+                } catch (RuntimeException single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private void insertOrders(List<PendingOrder> batch) {
+        Instant now = Instant.now();
+        insertIdempotencyKeys(batch.stream().map(PendingOrder::claim).filter(Objects::nonNull).toList(), now);
+
+        List<Order> orders = new ArrayList<>(batch.size());
+        List<OrderLineItems> lines = new ArrayList<>();
+        List<Order> lineOwners = new ArrayList<>();
+        for (PendingOrder pending : batch) {
+            Order order = new Order();
+            order.setOrderNumber(pending.orderNumber());
+            order.setUsername(pending.request().getUsername());
+            order.setStatus("PENDING_STOCK");
+            order.setCreatedAt(now);
+            order.setOrderLineItemsList(new ArrayList<>());
+            for (OrderLineItemsDto dto : pending.request().getOrderLineItemsDtoList()) {
+                OrderLineItems line = new OrderLineItems();
+                line.setProductCode(dto.getProductCode());
+                line.setPrice(dto.getPrice());
+                line.setQuantity(dto.getQuantity());
+                order.getOrderLineItemsList().add(line);
+                lines.add(line);
+                lineOwners.add(order);
+            }
+            orders.add(order);
+        }
+
+        // Les identifiants générés reviennent avec le lot : pas d'aller-retour par ligne pour les connaître
+        List<Long> orderIds = insertReturningIds(
+                "insert into t_orders (order_number, username, status, created_at) values (?, ?, ?, ?)",
+                orders.size(), (ps, i) -> {
+                    Order order = orders.get(i);
+                    ps.setString(1, order.getOrderNumber());
+                    ps.setString(2, order.getUsername());
+                    ps.setString(3, order.getStatus());
+                    ps.setTimestamp(4, Timestamp.from(order.getCreatedAt()));
+                });
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(orderIds.get(i));
+        }
+
+        if (!lines.isEmpty()) {
+            List<Long> lineIds = insertReturningIds(
+                    "insert into t_order_line_items (product_code, price, quantity) values (?, ?, ?)",
+                    lines.size(), (ps, i) -> {
+                        OrderLineItems line = lines.get(i);
+                        ps.setString(1, line.getProductCode());
+                        ps.setBigDecimal(2, line.getPrice());
+                        ps.setObject(3, line.getQuantity());
+                    });
+            for (int i = 0; i < lines.size(); i++) {
+                lines.get(i).setId(lineIds.get(i));
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into t_orders_order_line_items_list (order_id, order_line_items_list_id) values (?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setLong(1, lineOwners.get(i).getId());
+                            ps.setLong(2, lines.get(i).getId());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return lines.size();
+                        }
+                    });
+        }
+
+        orderStatsService.recordOrdersPlaced(orders);
+        outboxService.requestReservations(orders);
+    }
+
+    /**
+     * Clés prises en premier, comme dans OrderService : une clé déjà prise lève une violation de clé primaire
+     * avant qu'une commande du lot ne soit écrite. Une clé expirée mais pas encore purgée peut être réutilisée.
+     */
+    private void insertIdempotencyKeys(List<IdempotencyRecord> claims, Instant now) {
+        if (claims.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("delete from t_idempotency_keys where idempotency_key = ? and expires_at <= ?",
+                claims.stream().map(claim -> new Object[]{claim.getIdempotencyKey(), Timestamp.from(now)}).toList());
+        jdbcTemplate.batchUpdate("insert into t_idempotency_keys " +
+                        "(idempotency_key, request_hash, order_number, response, created_at, expires_at) values (?, ?, ?, ?, ?, ?)",
+                claims.stream().map(claim -> new Object[]{
+                        claim.getIdempotencyKey(),
+                        claim.getRequestHash(),
+                        claim.getOrderNumber(),
+                        claim.getResponse(),
+                        Timestamp.from(claim.getCreatedAt()),
+                        Timestamp.from(claim.getExpiresAt())
+                }).toList());
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private List<Long> insertReturningIds(String sql, int size, RowSetter setter) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.set(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                },
+                keyHolder);
+        List<Long> ids = keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+        if (ids.size() != size) {
+            throw new IllegalStateException("Identifiants générés manquants : " + ids.size() + " sur " + size);
+        }
+        return ids;
+    }
+}
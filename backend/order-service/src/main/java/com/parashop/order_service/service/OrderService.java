@@ -1,34 +1,82 @@
 package com.parashop.order_service.service;
 
 import com.parashop.order_service.dto.OrderLineItemsResponse;
+import com.parashop.order_service.dto.OrderPageResponse;
 import com.parashop.order_service.dto.OrderResponse;
 import com.parashop.order_service.client.InventoryClient;
 import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.AvailabilityResponse;
+import com.parashop.order_service.dto.HoldResponse;
+import com.parashop.order_service.dto.OrderPlacementResponse;
 import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.IdempotencyRecord;
 import com.parashop.order_service.model.Order;
 import com.parashop.order_service.model.OrderLineItems;
+import com.parashop.order_service.repository.IdempotencyRecordRepository;
 import com.parashop.order_service.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final InventoryClient inventoryClient;
+    private final OrderStatsService orderStatsService;
+    private final StockAvailabilityChecker stockAvailabilityChecker;
+    private final OutboxService outboxService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    /**
+     * La commande est acceptée en PENDING_STOCK : le client suit ensuite son statut avec le numéro renvoyé.
+     */
+    public OrderPlacementResponse placeOrder(OrderRequest orderRequest) {
+        return placeOrder(UUID.randomUUID().toString(), orderRequest);
+    }
 
-    public String placeOrder(OrderRequest orderRequest) {
+    /**
+     * Numéro attribué par l'appelant : l'ingestion groupée l'a déjà communiqué avant d'écrire la commande.
+     */
+    public OrderPlacementResponse placeOrder(String orderNumber, OrderRequest orderRequest) {
+        createOrder(orderNumber, orderRequest);
+        return OrderPlacementResponse.pendingStock(orderNumber);
+    }
+
+    /**
+     * Commande avec clé d'idempotence : la clé est prise en premier, dans la même transaction que la commande.
+     * Une requête concurrente portant la même clé échoue sur la clé primaire avant d'avoir créé quoi que ce soit.
+     * Un numéro déjà attribué par l'ingestion groupée est conservé.
+     */
+    public IdempotencyRecord placeOrder(OrderRequest orderRequest, IdempotencyRecord claim) {
+        if (claim.getOrderNumber() == null) {
+            claim.setOrderNumber(UUID.randomUUID().toString());
+        }
+        claim.setResponse(OrderPlacementResponse.pendingStock(claim.getOrderNumber()).getMessage());
+        claim.setCreatedAt(Instant.now());
+        // Une clé expirée mais pas encore purgée peut être réutilisée
+        idempotencyRecordRepository.deleteExpired(claim.getIdempotencyKey(), claim.getCreatedAt());
+        idempotencyRecordRepository.insert(claim.getIdempotencyKey(), claim.getRequestHash(), claim.getOrderNumber(),
+                claim.getResponse(), claim.getCreatedAt(), claim.getExpiresAt());
+        createOrder(claim.getOrderNumber(), orderRequest);
+        return claim;
+    }
+
+    private void createOrder(String orderNumber, OrderRequest orderRequest) {
         Order order = new Order();
-        order.setOrderNumber(UUID.randomUUID().toString());
+        order.setOrderNumber(orderNumber);
         order.setUsername(orderRequest.getUsername());
 
         List<OrderLineItems> orderLineItems = orderRequest.getOrderLineItemsDtoList()
@@ -38,51 +86,93 @@ public class OrderService {
 
         order.setOrderLineItemsList(orderLineItems);
 
-        // 1. Agregation des quantités par produit pour validation globale
+        // La commande et sa demande de réservation sont enregistrées dans la même transaction ;
+        // le relais de l'outbox réserve le stock ensuite, sans faire attendre le client
+        order.setStatus("PENDING_STOCK");
+        orderRepository.saveAndFlush(order);
+        orderStatsService.recordOrderPlaced(order);
+        outboxService.requestReservation(order);
+    }
+
+    /**
+     * Vérification du panier avant la commande (page panier), sans rien réserver.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AvailabilityResponse checkAvailability(OrderRequest orderRequest) {
         Map<String, Integer> productQuantities = new HashMap<>();
-        for (OrderLineItems item : orderLineItems) {
+        for (OrderLineItemsDto item : orderRequest.getOrderLineItemsDtoList()) {
             productQuantities.merge(item.getProductCode(), item.getQuantity(), Integer::sum);
         }
+        return stockAvailabilityChecker.check(productQuantities);
+    }
 
-        // 2. Vérification du stock global
-        boolean allInStock = productQuantities.entrySet().stream()
-                .allMatch(entry -> inventoryClient.isInStock(entry.getKey(), entry.getValue()));
+    /**
+     * Les {@value #MAX_PAGE_SIZE} commandes les plus récentes seulement : au-delà, passer par l'historique paginé.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getAllOrders() {
+        return getOrderPage(null, null, null, MAX_PAGE_SIZE).getItems();
+    }
 
-        if (allInStock) {
-            order.setStatus("PENDING_VALIDATION");
-            orderRepository.save(order);
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByUsername(String username) {
+        return getOrderPage(username, null, null, MAX_PAGE_SIZE).getItems();
+    }
 
-            // 3. Décrémenter le stock immédiatement (Temps Réel)
-            for (Map.Entry<String, Integer> entry : productQuantities.entrySet()) {
-                Map<String, Object> updateDto = new HashMap<>();
-                updateDto.put("productCode", entry.getKey());
-                updateDto.put("quantity", -entry.getValue()); // Négatif pour diminuer
-                updateDto.put("unit", "PIECE"); // Par défaut PIECE pour l'instant
-                inventoryClient.updateInventory(updateDto);
-            }
+    /**
+     * Historique paginé, du plus récent au plus ancien. Sans username, toutes les commandes (administration).
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderPage(String username, Instant beforeCreatedAt, Long beforeId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // On lit une commande de plus que la page pour savoir s'il en reste
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        boolean firstPage = beforeCreatedAt == null || beforeId == null;
 
-            return "Commande passée avec succès !";
+        List<Order> orders;
+        if (username != null) {
+            orders = firstPage
+                    ? orderRepository.findByUsernameOrderByCreatedAtDescIdDesc(username, page)
+                    : orderRepository.findByUsernameBefore(username, beforeCreatedAt, beforeId, page);
         } else {
-            throw new IllegalArgumentException("Stock insuffisant pour un ou plusieurs produits.");
+            orders = firstPage
+                    ? orderRepository.findAllByOrderByCreatedAtDescIdDesc(page)
+                    : orderRepository.findAllBefore(beforeCreatedAt, beforeId, page);
         }
-    }
 
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .toList();
-    }
-
-    public List<OrderResponse> getOrdersByUsername(String username) {
-        return orderRepository.findAll().stream()
-                .filter(order -> username.equals(order.getUsername()))
-                .map(this::mapToResponse)
-                .toList();
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        Order last = hasMore ? orders.get(orders.size() - 1) : null;
+        return new OrderPageResponse(
+                orders.stream().map(this::mapToResponse).toList(),
+                last != null ? last.getCreatedAt() : null,
+                last != null ? last.getId() : null,
+                hasMore);
     }
 
+    @Transactional(noRollbackFor = IllegalStateException.class)
     public void validateOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Commande non trouvée"));
+
+        if ("PENDING_STOCK".equals(order.getStatus())) {
+            throw new IllegalStateException("Le stock de la commande est en cours de réservation, réessayez dans un instant");
+        }
+        if ("REJECTED".equals(order.getStatus())) {
+            throw new IllegalStateException("La commande a été rejetée faute de stock");
+        }
+
+        // Les commandes antérieures aux réservations temporaires n'en ont pas (NOT_FOUND)
+        HoldResponse hold = inventoryClient.confirmHold(order.getOrderNumber());
+        if (!hold.isSuccess() && !"NOT_FOUND".equals(hold.getStatus())) {
+            order.setStatus("EXPIRED");
+            orderRepository.save(order);
+            orderStatsService.recordOrderRemoved(order);
+            throw new IllegalStateException("La réservation du stock a expiré, la commande ne peut plus être validée");
+        }
+
         order.setStatus("VALIDATED");
         orderRepository.save(order);
     }
@@ -95,32 +185,30 @@ public class OrderService {
             throw new RuntimeException("Commande déjà annulée");
         }
 
+        String previousStatus = order.getStatus();
         order.setStatus("CANCELLED");
         orderRepository.save(order);
 
-        // Restaurer le stock pour chaque article
-        for (OrderLineItems item : order.getOrderLineItemsList()) {
-            Map<String, Object> updateDto = new HashMap<>();
-            updateDto.put("productCode", item.getProductCode());
-            updateDto.put("quantity", item.getQuantity());
-            updateDto.put("unit", "PIECE");
-            inventoryClient.updateInventory(updateDto);
+        // Une commande expirée ou rejetée a déjà rendu son stock et quitté les statistiques
+        if ("EXPIRED".equals(previousStatus) || "REJECTED".equals(previousStatus)) {
+            return;
         }
+        orderStatsService.recordOrderRemoved(order);
+
+        // Le stock est rendu par le relais de l'outbox, dans la même transaction que l'annulation
+        outboxService.requestRelease(order);
     }
 
     public List<Map<String, Object>> getUserStats() {
-        // Simple aggregation by username
-        Map<String, Long> orderCounts = orderRepository.findAll().stream()
-                .collect(Collectors.groupingBy(Order::getUsername, Collectors.counting()));
-        
-        return orderCounts.entrySet().stream()
-                .map(e -> {
+        // Tous les clients, lus depuis les agrégats matérialisés : le coût ne dépend plus du nombre de commandes.
+        // orderCount ne compte que les commandes actives (ni annulées, ni expirées, ni rejetées)
+        return orderStatsService.getAllUsers().stream()
+                .map(stats -> {
                     Map<String, Object> stat = new HashMap<>();
-                    stat.put("username", e.getKey());
-                    stat.put("orderCount", e.getValue());
+                    stat.put("username", stats.getUsername());
+                    stat.put("orderCount", stats.getOrderCount());
                     return stat;
                 })
-                .sorted((a, b) -> ((Long) b.get("orderCount")).compareTo((Long) a.get("orderCount")))
                 .toList();
     }
 
@@ -130,6 +218,7 @@ public class OrderService {
         response.setOrderNumber(order.getOrderNumber());
         response.setUsername(order.getUsername());
         response.setStatus(order.getStatus());
+        response.setCreatedAt(order.getCreatedAt());
         response.setOrderLineItemsList(order.getOrderLineItemsList().stream()
                 .map(item -> new OrderLineItemsResponse(
                         item.getId(),
@@ -140,7 +229,14 @@ public class OrderService {
         return response;
     }
 
+    /**
+     * La nouvelle quantité part par l'outbox, dans la transaction de la demande : la ligne n'est modifiée qu'une fois
+     * la réservation ajustée ({@link #applyLineQuantity}), une demande refusée faute de stock laisse la commande inchangée.
+     */
     public void updateOrderQuantity(Long orderId, String productCode, Integer newQuantity) {
+        if (newQuantity == null || newQuantity < 0) {
+            throw new IllegalArgumentException("Quantité invalide");
+        }
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Commande non trouvée"));
 
@@ -148,43 +244,46 @@ public class OrderService {
             throw new RuntimeException("Impossible de modifier une commande validée ou annulée");
         }
 
-        OrderLineItems itemToUpdate = order.getOrderLineItemsList().stream()
+        order.getOrderLineItemsList().stream()
                 .filter(item -> item.getProductCode().equals(productCode))
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé dans la commande"));
 
-        int oldQuantity = itemToUpdate.getQuantity();
-        int delta = newQuantity - oldQuantity;
-
-        if (delta == 0) return;
+        outboxService.requestAdjustment(order.getOrderNumber(), productCode, newQuantity);
+    }
 
-        // Si on augmente la quantité, vérifier le stock
-        if (delta > 0) {
-            boolean inStock = inventoryClient.isInStock(productCode, delta);
-            if (!inStock) {
-                throw new RuntimeException("Stock insuffisant pour augmenter la quantité");
-            }
+    /**
+     * Appelée par le relais de l'outbox une fois la ligne réservée fixée à {@code quantity} par l'inventaire.
+     */
+    public void applyLineQuantity(String orderNumber, String productCode, int quantity) {
+        Order order = orderRepository.findByOrderNumber(orderNumber).orElse(null);
+        // Annulée, expirée ou rejetée entre-temps : sa réservation est ou sera rendue en entier
+        if (order == null || !("PENDING_VALIDATION".equals(order.getStatus()) || "VALIDATED".equals(order.getStatus()))) {
+            return;
         }
-
-        // Mettre à jour le stock (négatif pour réduire le stock, positif pour restaurer)
-        Map<String, Object> updateDto = new HashMap<>();
-        updateDto.put("productCode", productCode);
-        updateDto.put("quantity", -delta); // Inverse du delta pour l'inventaire
-        updateDto.put("unit", "PIECE");
-        inventoryClient.updateInventory(updateDto);
+        OrderLineItems itemToUpdate = order.getOrderLineItemsList().stream()
+                .filter(item -> item.getProductCode().equals(productCode))
+                .findFirst()
+                .orElse(null);
+        if (itemToUpdate == null || itemToUpdate.getQuantity() == quantity) {
+            return;
+        }
+        int delta = quantity - itemToUpdate.getQuantity();
 
         // Mettre à jour la commande
-        itemToUpdate.setQuantity(newQuantity);
-        if (newQuantity <= 0) {
+        itemToUpdate.setQuantity(quantity);
+        if (quantity <= 0) {
             order.getOrderLineItemsList().remove(itemToUpdate);
         }
-        
+
         // Si la commande est vide, l'annuler
-        if (order.getOrderLineItemsList().isEmpty()) {
+        boolean emptied = order.getOrderLineItemsList().isEmpty();
+        if (emptied) {
             order.setStatus("CANCELLED");
         }
 
         orderRepository.save(order);
+        orderStatsService.recordLineChanged(order, itemToUpdate, delta, quantity <= 0, emptied);
     }
 
     private OrderLineItems mapToEntity(OrderLineItemsDto orderLineItemsDto) {
@@ -0,0 +1,237 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.model.DailySalesStats;
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderLineItems;
+import com.parashop.order_service.model.ProductSalesStats;
+import com.parashop.order_service.model.UserOrderStats;
+import com.parashop.order_service.repository.DailySalesStatsRepository;
+import com.parashop.order_service.repository.ProductSalesStatsRepository;
+import com.parashop.order_service.repository.UserOrderStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistiques de ventes matérialisées, mises à jour dans la transaction de chaque changement de commande.
+ * Les tableaux de bord lisent ces agrégats au lieu de parcourir l'historique des commandes.
+ * Les variations sont cumulées par clé puis écrites en une requête groupée par table : incrément des lignes
+ * existantes, puis création à zéro des lignes manquantes (ON CONFLICT DO NOTHING) et nouvel incrément.
+ * Cette forme reste atomique entre commandes concurrentes et tourne aussi sur H2 en mode PostgreSQL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsService {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final UserOrderStatsRepository userOrderStatsRepository;
+    private final ProductSalesStatsRepository productSalesStatsRepository;
+    private final DailySalesStatsRepository dailySalesStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void recordOrderPlaced(Order order) {
+        StatsDelta delta = new StatsDelta();
+        delta.addOrder(order, 1);
+        write(delta);
+    }
+
+    /**
+     * Lot de commandes (ingestion groupée) : les variations sont cumulées avant l'écriture, une requête groupée
+     * par table quel que soit le nombre de commandes du lot.
+     */
+    @Transactional
+    public void recordOrdersPlaced(List<Order> orders) {
+        StatsDelta delta = new StatsDelta();
+        orders.forEach(order -> delta.addOrder(order, 1));
+        write(delta);
+    }
+
+    /**
+     * Commande annulée ou expirée : elle sort de toutes les statistiques.
+     */
+    @Transactional
+    public void recordOrderRemoved(Order order) {
+        StatsDelta delta = new StatsDelta();
+        delta.addOrder(order, -1);
+        write(delta);
+    }
+
+    /**
+     * Changement de quantité d'une ligne. {@code lineRemoved} : la ligne a disparu de la commande ;
+     * {@code orderRemoved} : la commande, vidée, a été annulée.
+     */
+    @Transactional
+    public void recordLineChanged(Order order, OrderLineItems line, int quantityDelta,
+                                  boolean lineRemoved, boolean orderRemoved) {
+        BigDecimal revenueDelta = price(line).multiply(BigDecimal.valueOf(quantityDelta));
+        long orderDelta = orderRemoved ? -1 : 0;
+
+        StatsDelta delta = new StatsDelta();
+        if (order.getUsername() != null) {
+            delta.users.computeIfAbsent(order.getUsername(), key -> new Totals()).add(orderDelta, 0, revenueDelta);
+        }
+        delta.days.computeIfAbsent(salesDate(order), key -> new Totals()).add(orderDelta, 0, revenueDelta);
+        delta.products.computeIfAbsent(line.getProductCode(), key -> new Totals())
+                .add(lineRemoved ? -1 : 0, quantityDelta, revenueDelta);
+        write(delta);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserOrderStats> getTopUsers(String sort, int limit) {
+        PageRequest page = PageRequest.of(0, clamp(limit));
+        return "revenue".equalsIgnoreCase(sort)
+                ? userOrderStatsRepository.findAllByOrderByRevenueDesc(page)
+                : userOrderStatsRepository.findAllByOrderByOrderCountDesc(page);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserOrderStats> getAllUsers() {
+        return userOrderStatsRepository.findAllByOrderByOrderCountDescUsernameAsc();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductSalesStats> getTopProducts(String sort, int limit) {
+        PageRequest page = PageRequest.of(0, clamp(limit));
+        return "revenue".equalsIgnoreCase(sort)
+                ? productSalesStatsRepository.findAllByOrderByRevenueDesc(page)
+                : productSalesStatsRepository.findAllByOrderByQuantitySoldDesc(page);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesStats> getDailySales(LocalDate from, LocalDate to) {
+        return dailySalesStatsRepository.findBySalesDateBetweenOrderBySalesDateAsc(from, to);
+    }
+
+    /**
+     * Calcul initial des agrégats à partir de l'historique, une seule fois, quand les tables sont encore vides.
+     */
+    @Transactional
+    public void backfillIfEmpty() {
+        if (userOrderStatsRepository.count() > 0 || productSalesStatsRepository.count() > 0
+                || dailySalesStatsRepository.count() > 0) {
+            return;
+        }
+        int users = userOrderStatsRepository.backfill();
+        int products = productSalesStatsRepository.backfill();
+        int days = dailySalesStatsRepository.backfill();
+        if (users + products + days > 0) {
+            log.info("Statistiques initialisées : {} clients, {} produits, {} jours", users, products, days);
+        }
+    }
+
+    private void write(StatsDelta delta) {
+        if (!delta.users.isEmpty()) {
+            increment("update user_order_stats set order_count = order_count + ?, revenue = revenue + ? where username = ?",
+                    "insert into user_order_stats (username, order_count, revenue) values (?, 0, 0) " +
+                    "on conflict do nothing",
+                    delta.users.entrySet().stream()
+                            .map(e -> new Object[]{e.getValue().orders, e.getValue().revenue, e.getKey()})
+                            .toList());
+        }
+        if (!delta.days.isEmpty()) {
+            increment("update daily_sales_stats set order_count = order_count + ?, revenue = revenue + ? where sales_date = ?",
+                    "insert into daily_sales_stats (sales_date, order_count, revenue) values (?, 0, 0) " +
+                    "on conflict do nothing",
+                    delta.days.entrySet().stream()
+                            .map(e -> new Object[]{e.getValue().orders, e.getValue().revenue, e.getKey()})
+                            .toList());
+        }
+        if (!delta.products.isEmpty()) {
+            increment("update product_sales_stats set order_count = order_count + ?, quantity_sold = quantity_sold + ?, " +
+                      "revenue = revenue + ? where product_code = ?",
+                    "insert into product_sales_stats (product_code, order_count, quantity_sold, revenue) values (?, 0, 0, 0) " +
+                    "on conflict do nothing",
+                    delta.products.entrySet().stream()
+                            .map(e -> new Object[]{e.getValue().orders, e.getValue().quantity, e.getValue().revenue, e.getKey()})
+                            .toList());
+        }
+    }
+
+    /**
+     * {@code rows} : les arguments de {@code updateSql}, la clé en dernier.
+     */
+    private void increment(String updateSql, String createSql, List<Object[]> rows) {
+        int[] updated = jdbcTemplate.batchUpdate(updateSql, rows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        // Première vente pour ces clés ; sans effet si une commande concurrente a créé la ligne entre-temps
+        jdbcTemplate.batchUpdate(createSql, missing.stream().map(row -> new Object[]{row[row.length - 1]}).toList());
+        jdbcTemplate.batchUpdate(updateSql, missing);
+    }
+
+    private LocalDate salesDate(Order order) {
+        Instant createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now();
+        return LocalDate.ofInstant(createdAt, ZoneOffset.UTC);
+    }
+
+    private BigDecimal price(OrderLineItems line) {
+        return line.getPrice() != null ? line.getPrice() : BigDecimal.ZERO;
+    }
+
+    private int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    private static final class Totals {
+        private long orders;
+        private long quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(long orders, long quantity, BigDecimal revenue) {
+            this.orders += orders;
+            this.quantity += quantity;
+            this.revenue = this.revenue.add(revenue);
+        }
+    }
+
+    /**
+     * Variations cumulées par client, jour et produit. Triées par clé : les lignes sont verrouillées
+     * dans le même ordre par toutes les transactions, ce qui limite les interblocages.
+     */
+    private final class StatsDelta {
+        private final Map<String, Totals> users = new TreeMap<>();
+        private final Map<LocalDate, Totals> days = new TreeMap<>();
+        private final Map<String, Totals> products = new TreeMap<>();
+
+        private void addOrder(Order order, int sign) {
+            Map<String, Totals> lines = new TreeMap<>();
+            BigDecimal total = BigDecimal.ZERO;
+            for (OrderLineItems line : order.getOrderLineItemsList()) {
+                BigDecimal lineRevenue = price(line).multiply(BigDecimal.valueOf(line.getQuantity()));
+                lines.computeIfAbsent(line.getProductCode(), code -> new Totals()).add(0, line.getQuantity(), lineRevenue);
+                total = total.add(lineRevenue);
+            }
+
+            BigDecimal signedTotal = sign > 0 ? total : total.negate();
+            if (order.getUsername() != null) {
+                users.computeIfAbsent(order.getUsername(), key -> new Totals()).add(sign, 0, signedTotal);
+            }
+            days.computeIfAbsent(salesDate(order), key -> new Totals()).add(sign, 0, signedTotal);
+            // Une commande compte une fois par produit, même répartie sur plusieurs lignes
+            lines.forEach((productCode, line) -> products.computeIfAbsent(productCode, key -> new Totals())
+                    .add(sign, sign * line.quantity, sign > 0 ? line.revenue : line.revenue.negate()));
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.parashop.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.HoldRequest;
+import com.parashop.order_service.dto.HoldResponse;
+import com.parashop.order_service.dto.StockCommand;
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderSaga;
+import com.parashop.order_service.model.OutboxEvent;
+import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Envoie les commandes de stock de l'outbox à l'inventaire, par lots, et fait avancer les sagas.
+ * Un échec d'appel n'est jamais perdu : l'événement est retenté avec un délai croissant. Les commandes
+ * de l'inventaire sont idempotentes par référence, un renvoi après une réponse perdue est donc sans effet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final OrderStatsService orderStatsService;
+    private final OutboxService outboxService;
+    private final OrderService orderService;
+    private final InventoryClient inventoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${order.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${order.outbox.retention:7d}")
+    private Duration retention;
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay-interval:500ms}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            List<OutboxEvent> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<String, List<OutboxEvent>> byType = batch.stream()
+                    .collect(Collectors.groupingBy(OutboxEvent::getType));
+            sendReservations(byType.getOrDefault(OutboxEvent.RESERVE_STOCK, List.of()));
+            sendReleases(byType.getOrDefault(OutboxEvent.RELEASE_STOCK, List.of()));
+            sendAdjustments(byType.getOrDefault(OutboxEvent.ADJUST_HOLD, List.of()));
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${order.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Integer purged = transactionTemplate.execute(status -> outboxEventRepository
+                .deleteByStatusAndCreatedAtBefore(OutboxEvent.SENT, Instant.now().minus(retention)));
+        if (purged != null && purged > 0) {
+            log.info("{} événements d'outbox envoyés purgés", purged);
+        }
+    }
+
+    /**
+     * Prend un lot d'événements dus. Le bail repousse leur prochaine tentative : si l'instance tombe
+     * pendant l'envoi, une autre les reprendra à son expiration.
+     */
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> events = outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    OutboxEvent.PENDING, now, PageRequest.of(0, batchSize));
+            events.forEach(event -> event.setNextAttemptAt(now.plus(lease)));
+            return events;
+        });
+    }
+
+    private void sendReservations(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Une commande annulée avant l'envoi n'a plus besoin de stock
+        Map<String, Order> orders = orderRepository.findByOrderNumberIn(
+                        events.stream().map(OutboxEvent::getAggregateId).toList()).stream()
+                .collect(Collectors.toMap(Order::getOrderNumber, Function.identity()));
+        List<OutboxEvent> toSend = new ArrayList<>();
+        List<OutboxEvent> obsolete = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            Order order = orders.get(event.getAggregateId());
+            (order != null && "PENDING_STOCK".equals(order.getStatus()) ? toSend : obsolete).add(event);
+        }
+        transactionTemplate.executeWithoutResult(status -> obsolete.forEach(event -> markSent(event.getId())));
+        if (toSend.isEmpty()) {
+            return;
+        }
+
+        List<HoldRequest> requests = toSend.stream()
+                .map(event -> {
+                    StockCommand command = read(event);
+                    return new HoldRequest(command.getReference(), command.getItems(), command.getTtlSeconds());
+                })
+                .toList();
+        List<HoldResponse> responses;
+        try {
+            responses = inventoryClient.placeHolds(requests);
+        } catch (RuntimeException e) {
+            log.warn("Envoi de {} réservations à l'inventaire échoué : {}", toSend.size(), e.getMessage());
+            toSend.forEach(event -> recordFailure(event, e));
+            return;
+        }
+
+        Map<String, HoldResponse> byReference = responses.stream()
+                .collect(Collectors.toMap(HoldResponse::getReference, Function.identity(), (a, b) -> a));
+        for (OutboxEvent event : toSend) {
+            HoldResponse hold = byReference.get(event.getAggregateId());
+            if (isFailed(hold)) {
+                recordFailure(event, failure(event, hold));
+            } else {
+                transactionTemplate.executeWithoutResult(status -> applyReservation(event, hold));
+            }
+        }
+    }
+
+    private void applyReservation(OutboxEvent event, HoldResponse hold) {
+        markSent(event.getId());
+        String orderNumber = event.getAggregateId();
+        if (hold.isSuccess()) {
+            if (orderRepository.updateStatusIf(orderNumber, "PENDING_STOCK", "PENDING_VALIDATION") == 1) {
+                outboxService.updateState(orderNumber, OrderSaga.STOCK_RESERVED, null);
+            } else {
+                // Annulée pendant l'envoi : la réservation qui vient d'être posée est rendue
+                outboxService.requestRelease(orderNumber, read(event).getItems());
+            }
+            return;
+        }
+        String reason = "Stock insuffisant : " + String.join(", ", hold.getUnavailableProductCodes());
+        reject(orderNumber, OrderSaga.REJECTED, reason);
+    }
+
+    private void sendReleases(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<HoldResponse> responses;
+        try {
+            responses = inventoryClient.releaseHolds(events.stream().map(OutboxEvent::getAggregateId).toList());
+        } catch (RuntimeException e) {
+            log.warn("Envoi de {} libérations à l'inventaire échoué : {}", events.size(), e.getMessage());
+            events.forEach(event -> recordFailure(event, e));
+            return;
+        }
+
+        Map<String, HoldResponse> byReference = responses.stream()
+                .collect(Collectors.toMap(HoldResponse::getReference, Function.identity(), (a, b) -> a));
+        for (OutboxEvent event : events) {
+            HoldResponse hold = byReference.get(event.getAggregateId());
+            StockCommand command = read(event);
+            try {
+                // Commande antérieure aux réservations : ses quantités sont rendues directement
+                if (hold != null && "NOT_FOUND".equals(hold.getStatus()) && command.isLegacy()
+                        && command.getItems() != null && !command.getItems().isEmpty()) {
+                    // Idempotent côté inventaire par numéro de commande : un renvoi ne rend rien une seconde fois
+                    inventoryClient.restoreWithoutHold(event.getAggregateId(), command.getItems());
+                }
+            } catch (RuntimeException e) {
+                recordFailure(event, e);
+                continue;
+            }
+            if (isFailed(hold)) {
+                recordFailure(event, failure(event, hold));
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                markSent(event.getId());
+                // Une saga rejetée ou en échec garde son état final ; seule une annulation passe à RELEASED
+                outboxService.advanceState(event.getAggregateId(), OrderSaga.RELEASE_PENDING, OrderSaga.RELEASED);
+            });
+        }
+    }
+
+    /**
+     * Une demande par ligne, dans l'ordre des événements. Une demande suivie d'une plus récente pour la même ligne
+     * n'est pas envoyée : retentée après elle, elle écraserait la dernière quantité voulue par le client.
+     */
+    private void sendAdjustments(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            Map.Entry<String, Integer> line = read(event).getItems().entrySet().iterator().next();
+            if (isSuperseded(event, line.getKey())) {
+                transactionTemplate.executeWithoutResult(status -> markSent(event.getId()));
+                continue;
+            }
+            HoldResponse hold;
+            try {
+                hold = inventoryClient.setHoldQuantity(event.getAggregateId(), line.getKey(), line.getValue());
+            } catch (RuntimeException e) {
+                recordFailure(event, e);
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                markSent(event.getId());
+                if (hold.isSuccess()) {
+                    orderService.applyLineQuantity(event.getAggregateId(), line.getKey(), line.getValue());
+                } else {
+                    log.info("Quantité de {} inchangée sur la commande {} : réservation {}",
+                            line.getKey(), event.getAggregateId(), hold.getStatus());
+                }
+            });
+        }
+    }
+
+    // Réponse absente, ou erreur de l'inventaire sur cette seule référence : à retenter, rien n'est décidé
+    private static boolean isFailed(HoldResponse hold) {
+        return hold == null || "ERROR".equals(hold.getStatus());
+    }
+
+    private static IllegalStateException failure(OutboxEvent event, HoldResponse hold) {
+        return new IllegalStateException((hold == null ? "Réponse absente pour " : "Erreur de l'inventaire pour ")
+                + event.getAggregateId());
+    }
+
+    private boolean isSuperseded(OutboxEvent event, String productCode) {
+        return outboxEventRepository.findByAggregateIdAndTypeAndIdGreaterThan(
+                        event.getAggregateId(), OutboxEvent.ADJUST_HOLD, event.getId()).stream()
+                .anyMatch(newer -> read(newer).getItems().containsKey(productCode));
+    }
+
+    /**
+     * Retente avec un délai exponentiel. Une réservation qui échoue trop longtemps est abandonnée : la commande
+     * est rejetée et une libération est envoyée au cas où l'inventaire l'aurait posée malgré tout.
+     * Une libération ou un ajustement, idempotents, sont retentés sans limite jusqu'à la réponse de l'inventaire.
+     */
+    private void recordFailure(OutboxEvent claimed, RuntimeException error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            OutboxEvent event = outboxEventRepository.findById(claimed.getId()).orElse(null);
+            if (event == null || !OutboxEvent.PENDING.equals(event.getStatus())) {
+                return;
+            }
+            int attempts = event.getAttempts() + 1;
+            String message = truncate(error.getMessage());
+            event.setAttempts(attempts);
+            event.setLastError(message);
+
+            if (OutboxEvent.RESERVE_STOCK.equals(event.getType()) && attempts >= maxAttempts) {
+                event.setStatus(OutboxEvent.FAILED);
+                reject(event.getAggregateId(), OrderSaga.FAILED, message);
+                outboxService.requestRelease(event.getAggregateId(), read(event).getItems());
+                log.error("Réservation du stock abandonnée pour la commande {} après {} tentatives",
+                        event.getAggregateId(), attempts);
+                return;
+            }
+            event.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+        });
+    }
+
+    private void reject(String orderNumber, String sagaState, String reason) {
+        if (orderRepository.updateStatusIf(orderNumber, "PENDING_STOCK", "REJECTED") == 1) {
+            orderRepository.findByOrderNumber(orderNumber).ifPresent(orderStatsService::recordOrderRemoved);
+        }
+        outboxService.updateState(orderNumber, sagaState, reason);
+    }
+
+    private void markSent(Long eventId) {
+        outboxEventRepository.findById(eventId).ifPresent(event -> {
+            event.setStatus(OutboxEvent.SENT);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(null);
+        });
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private StockCommand read(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), StockCommand.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Événement d'outbox illisible : " + event.getId(), e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,154 @@
+package com.parashop.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parashop.order_service.dto.StockCommand;
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderLineItems;
+import com.parashop.order_service.model.OrderSaga;
+import com.parashop.order_service.model.OutboxEvent;
+import com.parashop.order_service.repository.OrderSagaRepository;
+import com.parashop.order_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Écrit les commandes de stock dans l'outbox et tient l'état de la saga, toujours dans la transaction
+ * de la commande : soit la commande et sa commande de stock sont enregistrées ensemble, soit aucune.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderSagaRepository orderSagaRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.hold-ttl:30m}")
+    private Duration holdTtl;
+
+    public void requestReservation(Order order) {
+        orderSagaRepository.save(OrderSaga.builder()
+                .orderNumber(order.getOrderNumber())
+                .state(OrderSaga.STOCK_PENDING)
+                .updatedAt(Instant.now())
+                .build());
+        enqueue(OutboxEvent.RESERVE_STOCK, new StockCommand(
+                order.getOrderNumber(), quantities(order), holdTtl.toSeconds(), false));
+    }
+
+    /**
+     * Même chose que {@link #requestReservation(Order)} pour un lot de commandes (ingestion groupée) :
+     * une requête groupée pour les sagas et une pour les événements, au lieu de deux inserts par commande.
+     */
+    public void requestReservations(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+                "insert into t_order_sagas (order_number, state, updated_at) values (?, ?, ?)",
+                orders.stream()
+                        .map(order -> new Object[]{order.getOrderNumber(), OrderSaga.STOCK_PENDING, now})
+                        .toList());
+        jdbcTemplate.batchUpdate(
+                "insert into t_outbox_events (aggregate_id, type, payload, status, attempts, next_attempt_at, created_at) " +
+                "values (?, ?, ?, ?, 0, ?, ?)",
+                orders.stream()
+                        .map(order -> new Object[]{
+                                order.getOrderNumber(),
+                                OutboxEvent.RESERVE_STOCK,
+                                write(new StockCommand(order.getOrderNumber(), quantities(order), holdTtl.toSeconds(), false)),
+                                OutboxEvent.PENDING,
+                                now,
+                                now})
+                        .toList());
+    }
+
+    /**
+     * Compensation : rend le stock réservé pour la commande. Les commandes antérieures à l'outbox n'ont pas de saga ;
+     * si elles n'ont pas non plus de réservation, leurs quantités sont rendues directement.
+     */
+    public void requestRelease(Order order) {
+        Optional<OrderSaga> saga = orderSagaRepository.findByOrderNumber(order.getOrderNumber());
+        saga.ifPresent(s -> updateState(s, OrderSaga.RELEASE_PENDING, null));
+        enqueue(OutboxEvent.RELEASE_STOCK, new StockCommand(
+                order.getOrderNumber(), quantities(order), null, saga.isEmpty()));
+    }
+
+    public void requestRelease(String orderNumber, Map<String, Integer> items) {
+        enqueue(OutboxEvent.RELEASE_STOCK, new StockCommand(orderNumber, items, null, false));
+    }
+
+    /**
+     * Nouvelle quantité d'une ligne, appliquée à la commande une fois la réservation ajustée par l'inventaire.
+     * Les commandes antérieures à l'outbox n'ont pas de réservation à ajuster.
+     */
+    public void requestAdjustment(String orderNumber, String productCode, int quantity) {
+        if (orderSagaRepository.findByOrderNumber(orderNumber).isEmpty()) {
+            throw new IllegalStateException("Commande antérieure aux réservations de stock : "
+                    + "annulez-la et passez-en une nouvelle pour changer les quantités");
+        }
+        enqueue(OutboxEvent.ADJUST_HOLD, new StockCommand(orderNumber, Map.of(productCode, quantity), null, false));
+    }
+
+    public void updateState(String orderNumber, String state, String error) {
+        orderSagaRepository.findByOrderNumber(orderNumber)
+                .ifPresent(saga -> updateState(saga, state, error));
+    }
+
+    public void advanceState(String orderNumber, String expectedState, String state) {
+        orderSagaRepository.findByOrderNumber(orderNumber)
+                .filter(saga -> expectedState.equals(saga.getState()))
+                .ifPresent(saga -> updateState(saga, state, null));
+    }
+
+    private void updateState(OrderSaga saga, String state, String error) {
+        saga.setState(state);
+        saga.setLastError(error);
+        saga.setUpdatedAt(Instant.now());
+    }
+
+    private void enqueue(String type, StockCommand command) {
+        Instant now = Instant.now();
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(command.getReference())
+                .type(type)
+                .payload(write(command))
+                .status(OutboxEvent.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    private String write(StockCommand command) {
+        try {
+            return objectMapper.writeValueAsString(command);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Commande de stock non sérialisable : " + command.getReference(), e);
+        }
+    }
+
+    private static Map<String, Integer> quantities(Order order) {
+        Map<String, Integer> productQuantities = new HashMap<>();
+        for (OrderLineItems item : order.getOrderLineItemsList()) {
+            productQuantities.merge(item.getProductCode(), item.getQuantity(), Integer::sum);
+        }
+        return productQuantities;
+    }
+}
@@ -0,0 +1,149 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.AvailabilityResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vérifie la disponibilité de toutes les lignes d'un panier en parallèle : la durée suit l'appel le plus lent
+ * et non la somme des appels. Le résultat tombe dès qu'une ligne est en rupture, ou au plus tard au délai fixé.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockAvailabilityChecker {
+
+    private static final String OPERATION = "inventory.isInStock";
+
+    private final InventoryClient inventoryClient;
+    private final CallLatencyRecorder latencyRecorder;
+
+    @Value("${order.stock-check.threads:16}")
+    private int threads;
+
+    @Value("${order.stock-check.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${order.stock-check.deadline:2s}")
+    private Duration deadline;
+
+    private ThreadPoolTaskExecutor checkExecutor;
+
+    // Pool borné : une rafale de paniers ne peut pas épuiser les threads ni les connexions vers l'inventaire
+    @PostConstruct
+    void startExecutor() {
+        checkExecutor = new ThreadPoolTaskExecutor();
+        checkExecutor.setCorePoolSize(threads);
+        checkExecutor.setMaxPoolSize(threads);
+        checkExecutor.setQueueCapacity(queueCapacity);
+        checkExecutor.setThreadNamePrefix("stock-check-");
+        checkExecutor.initialize();
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        checkExecutor.shutdown();
+    }
+
+    public AvailabilityResponse check(Map<String, Integer> productQuantities) {
+        long start = System.nanoTime();
+        CompletableFuture<String> firstUnavailable = new CompletableFuture<>();
+        // Les futures des tâches elles-mêmes : une tâche annulée avant d'avoir démarré n'appelle pas l'inventaire
+        List<CompletableFuture<Boolean>> calls = new CopyOnWriteArrayList<>();
+        List<String> unavailable = new ArrayList<>();
+        // Exécuté par le thread qui trouve la rupture, avant qu'il ne prenne la tâche suivante dans la file
+        firstUnavailable.thenRun(() -> cancelAll(calls));
+
+        try {
+            for (Map.Entry<String, Integer> line : new TreeMap<>(productQuantities).entrySet()) {
+                if (firstUnavailable.isDone()) {
+                    break;
+                }
+                String productCode = line.getKey();
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    boolean inStock = timedIsInStock(productCode, line.getValue());
+                    if (!inStock) {
+                        synchronized (unavailable) {
+                            unavailable.add(productCode);
+                        }
+                        firstUnavailable.complete(productCode);
+                    }
+                    return inStock;
+                }, checkExecutor));
+            }
+        } catch (TaskRejectedException e) {
+            cancelAll(calls);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Trop de vérifications de stock en cours, réessayez dans un instant");
+        }
+
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new));
+        boolean timedOut = false;
+        try {
+            CompletableFuture.anyOf(allDone, firstUnavailable).get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } catch (CancellationException e) {
+            // Appels annulés par la première rupture : le résultat est déjà connu
+        } catch (ExecutionException e) {
+            if (!firstUnavailable.isDone()) {
+                throw new RuntimeException("Erreur lors de la vérification du stock : " + e.getCause().getMessage(), e.getCause());
+            }
+        } finally {
+            // Les appels encore en file ne partent pas ; ceux déjà lancés ne sont pas interrompus (Feign est bloquant)
+            // et occupent leur thread jusqu'à leur réponse ou au read-timeout du client inventory-service
+            cancelAll(calls);
+        }
+
+        List<String> unavailableCodes;
+        synchronized (unavailable) {
+            unavailableCodes = List.copyOf(unavailable);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (timedOut) {
+            log.warn("Vérification du stock interrompue après {} ms ({} lignes)", elapsedMs, productQuantities.size());
+        }
+        return new AvailabilityResponse(!timedOut && unavailableCodes.isEmpty(), unavailableCodes, timedOut, elapsedMs);
+    }
+
+    public Map<String, Map<String, Object>> getLatencyStats() {
+        return latencyRecorder.snapshot();
+    }
+
+    private static void cancelAll(List<CompletableFuture<Boolean>> calls) {
+        calls.forEach(call -> call.cancel(false));
+    }
+
+    private boolean timedIsInStock(String productCode, Integer quantity) {
+        long start = System.nanoTime();
+        try {
+            return inventoryClient.isInStock(productCode, quantity);
+        } finally {
+            latencyRecorder.record(OPERATION, System.nanoTime() - start);
+        }
+    }
+}
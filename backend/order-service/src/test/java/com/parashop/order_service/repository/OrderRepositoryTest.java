@@ -0,0 +1,100 @@
+package com.parashop.order_service.repository;
+
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderLineItems;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderRepositoryTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // Deux commandes par instant pour vérifier le départage par id
+        for (int i = 0; i < 12; i++) {
+            persistOrder("alice", START.plusSeconds(i / 2));
+            persistOrder("bob", START.plusSeconds(i / 2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userHistoryIsPagedByCreationDateThenId() {
+        List<Order> seen = new ArrayList<>();
+        List<Order> page = orderRepository.findByUsernameOrderByCreatedAtDescIdDesc("alice", PageRequest.of(0, 5));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            Order last = page.get(page.size() - 1);
+            page = orderRepository.findByUsernameBefore("alice", last.getCreatedAt(), last.getId(), PageRequest.of(0, 5));
+        }
+
+        assertThat(seen).hasSize(12).allMatch(order -> order.getUsername().equals("alice"));
+        for (int i = 1; i < seen.size(); i++) {
+            Order previous = seen.get(i - 1);
+            Order current = seen.get(i);
+            assertThat(current.getCreatedAt()).isBeforeOrEqualTo(previous.getCreatedAt());
+            if (current.getCreatedAt().equals(previous.getCreatedAt())) {
+                assertThat(current.getId()).isLessThan(previous.getId());
+            }
+        }
+    }
+
+    @Test
+    void lineItemsOfAPageAreLoadedInOneBatch() {
+        List<Order> page = orderRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.of(0, 20));
+        page.forEach(order -> order.getOrderLineItemsList().size());
+
+        assertThat(page).hasSize(20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private void persistOrder(String username, Instant createdAt) {
+        OrderLineItems item = new OrderLineItems();
+        item.setProductCode("EUC_001");
+        item.setPrice(BigDecimal.TEN);
+        item.setQuantity(1);
+
+        Order order = new Order();
+        order.setOrderNumber(UUID.randomUUID().toString());
+        order.setUsername(username);
+        order.setStatus("PENDING_VALIDATION");
+        order.setCreatedAt(createdAt);
+        order.setOrderLineItemsList(new ArrayList<>(List.of(item)));
+        entityManager.persist(order);
+    }
+}
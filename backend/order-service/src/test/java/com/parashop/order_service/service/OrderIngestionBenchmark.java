@@ -0,0 +1,127 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.OrderPlacementResponse;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.UserOrderStats;
+import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.repository.OutboxEventRepository;
+import com.parashop.order_service.repository.UserOrderStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débit de placeOrder, une transaction par commande contre l'ingestion groupée, avec des clients concurrents.
+ * Lancé à la demande : gradle test -Dorder.benchmark=true --tests '*OrderIngestionBenchmark'.
+ * Les statistiques matérialisées sont écrites pour de bon, dans les deux modes.
+ * Sans configuration, tourne sur H2 en mémoire, en mode PostgreSQL (pas de fsync au commit, le gain y est sous-estimé) ;
+ * pour mesurer sur PostgreSQL, fournir SPRING_DATASOURCE_URL, SPRING_DATASOURCE_USERNAME et
+ * SPRING_DATASOURCE_PASSWORD dans l'environnement, vers une base jetable (le schéma est recréé).
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=${SPRING_DATASOURCE_URL:jdbc:h2:mem:order-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1}",
+        "order.ingestion.group-commit=true",
+        "order.ingestion.max-batch-size=200",
+        "order.ingestion.linger=5ms"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderIngestionService.class, OrderStatsService.class, OutboxService.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "order.benchmark", matches = "true")
+class OrderIngestionBenchmark {
+
+    private static final int CLIENTS = 64;
+    private static final int ORDERS = 5_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserOrderStatsRepository userOrderStatsRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private StockAvailabilityChecker stockAvailabilityChecker;
+
+    @Test
+    void groupCommitOutperformsOneTransactionPerOrder() throws Exception {
+        // Échauffement des deux chemins (JIT, pool de connexions)
+        run(orderService::placeOrder, 500);
+        run(orderIngestionService::placeOrder, 500);
+
+        double perOrder = run(orderService::placeOrder, ORDERS);
+        double grouped = run(orderIngestionService::placeOrder, ORDERS);
+
+        System.out.printf("Une transaction par commande : %.0f commandes/s%n", perOrder);
+        System.out.printf("Ingestion groupée            : %.0f commandes/s (x%.1f)%n", grouped, grouped / perOrder);
+
+        assertThat(orderRepository.count()).isEqualTo(2L * (ORDERS + 500));
+        assertThat(outboxEventRepository.count()).isEqualTo(2L * (ORDERS + 500));
+        assertThat(userOrderStatsRepository.findAll().stream().mapToLong(UserOrderStats::getOrderCount).sum())
+                .isEqualTo(2L * (ORDERS + 500));
+        assertThat(grouped).isGreaterThan(perOrder);
+    }
+
+    private double run(Function<OrderRequest, OrderPlacementResponse> placeOrder, int orders) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<OrderPlacementResponse>> results = new ArrayList<>(orders);
+            for (int i = 0; i < orders; i++) {
+                OrderRequest request = request(i);
+                results.add(clients.submit(() -> placeOrder.apply(request)));
+            }
+            for (Future<OrderPlacementResponse> result : results) {
+                result.get();
+            }
+            return orders / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static OrderRequest request(int i) {
+        List<OrderLineItemsDto> lines = new ArrayList<>();
+        for (int line = 0; line < 3; line++) {
+            OrderLineItemsDto dto = new OrderLineItemsDto();
+            dto.setProductCode("P" + ((i + line) % 50));
+            dto.setPrice(BigDecimal.valueOf(10 + line));
+            dto.setQuantity(1 + line);
+            lines.add(dto);
+        }
+        return new OrderRequest("user" + (i % 500), lines);
+    }
+}
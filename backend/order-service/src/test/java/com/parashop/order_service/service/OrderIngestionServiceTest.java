@@ -0,0 +1,142 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.OrderPlacementResponse;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.IdempotencyRecord;
+import com.parashop.order_service.repository.IdempotencyRecordRepository;
+import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.repository.OrderSagaRepository;
+import com.parashop.order_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-ingestion;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "order.ingestion.group-commit=true",
+        // Attente longue : les commandes envoyées ensemble partent dans le même lot
+        "order.ingestion.linger=300ms",
+        "order.outbox.relay-interval=1d",
+        "order.outbox.purge-cron=-"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderIngestionService.class, IdempotencyService.class, OrderStatsService.class,
+        OutboxService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestionServiceTest {
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSagaRepository orderSagaRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private StockAvailabilityChecker stockAvailabilityChecker;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        orderSagaRepository.deleteAll();
+        orderRepository.deleteAll();
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void duplicateKeyInTheBatchKeepsTheNumbersAlreadyAssigned() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(3);
+        Future<OrderPlacementResponse> keyless;
+        List<Future<IdempotencyRecord>> keyed = new ArrayList<>();
+        try {
+            keyless = clients.submit(() -> orderIngestionService.placeOrder(request("bob")));
+            for (int i = 0; i < 2; i++) {
+                keyed.add(clients.submit(() -> orderIngestionService.placeOrder(request("alice"), claim("cle-1"))));
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        List<IdempotencyRecord> placed = new ArrayList<>();
+        int duplicates = 0;
+        for (Future<IdempotencyRecord> result : keyed) {
+            try {
+                placed.add(result.get());
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(DataIntegrityViolationException.class);
+                duplicates++;
+            }
+        }
+
+        // Le lot a échoué sur la clé en double : chaque commande repassée seule garde le numéro promis
+        assertThat(placed).hasSize(1);
+        assertThat(duplicates).isEqualTo(1);
+        assertThat(orderRepository.count()).isEqualTo(2);
+        assertThat(orderRepository.findByOrderNumber(keyless.get().getOrderNumber())).isPresent();
+        assertThat(orderRepository.findByOrderNumber(placed.get(0).getOrderNumber())).isPresent();
+        assertThat(idempotencyRecordRepository.findById("cle-1").orElseThrow().getOrderNumber())
+                .isEqualTo(placed.get(0).getOrderNumber());
+    }
+
+    @Test
+    void retryWithTheSameKeyGoesThroughIngestionOnlyOnce() {
+        String first = idempotencyService.placeOrder("cle-2", request("carol")).getOrderNumber();
+        String retry = idempotencyService.placeOrder("cle-2", request("carol")).getOrderNumber();
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(orderRepository.findByOrderNumber(first)).isPresent();
+    }
+
+    private static IdempotencyRecord claim(String key) {
+        return IdempotencyRecord.builder()
+                .idempotencyKey(key)
+                .requestHash("empreinte")
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+    }
+
+    private static OrderRequest request(String username) {
+        OrderLineItemsDto line = new OrderLineItemsDto();
+        line.setProductCode("P1");
+        line.setPrice(BigDecimal.TEN);
+        line.setQuantity(1);
+        return new OrderRequest(username, List.of(line));
+    }
+}
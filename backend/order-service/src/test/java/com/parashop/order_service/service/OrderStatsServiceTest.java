@@ -0,0 +1,141 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.HoldResponse;
+import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.DailySalesStats;
+import com.parashop.order_service.model.ProductSalesStats;
+import com.parashop.order_service.model.UserOrderStats;
+import com.parashop.order_service.repository.DailySalesStatsRepository;
+import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.repository.ProductSalesStatsRepository;
+import com.parashop.order_service.repository.UserOrderStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Les upserts des statistiques exécutés pour de bon, sur H2 en mode PostgreSQL (ON CONFLICT DO NOTHING).
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-stats;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "order.outbox.relay-interval=1d",
+        "order.outbox.purge-cron=-"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderStatsService.class, OutboxService.class, OutboxRelay.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStatsServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserOrderStatsRepository userOrderStatsRepository;
+
+    @Autowired
+    private ProductSalesStatsRepository productSalesStatsRepository;
+
+    @Autowired
+    private DailySalesStatsRepository dailySalesStatsRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private StockAvailabilityChecker stockAvailabilityChecker;
+
+    @Test
+    void placeQuantityChangeAndCancelKeepTheAggregatesInStep() {
+        String first = orderService.placeOrder(request(line("P1", 10, 2), line("P2", 5, 1))).getOrderNumber();
+        orderService.placeOrder(request(line("P1", 10, 1)));
+
+        assertUser(2, "35");
+        assertProduct("P1", 2, 3, "30");
+        assertProduct("P2", 1, 1, "5");
+        assertToday(2, "35");
+
+        // La réservation est posée : la commande devient modifiable
+        Long firstId = orderRepository.findByOrderNumber(first).orElseThrow().getId();
+        transactionTemplate.executeWithoutResult(status ->
+                orderRepository.updateStatusIf(first, "PENDING_STOCK", "PENDING_VALIDATION"));
+        when(inventoryClient.setHoldQuantity(anyString(), anyString(), anyInt()))
+                .thenReturn(new HoldResponse(first, true, "HELD", List.of(), null));
+        orderService.updateOrderQuantity(firstId, "P1", 5);
+
+        // Rien ne bouge tant que l'inventaire n'a pas ajusté la réservation
+        assertUser(2, "35");
+        outboxRelay.relay();
+
+        assertUser(2, "65");
+        assertProduct("P1", 2, 6, "60");
+        assertToday(2, "65");
+
+        orderService.cancelOrder(firstId);
+
+        assertUser(1, "10");
+        assertProduct("P1", 1, 1, "10");
+        assertProduct("P2", 0, 0, "0");
+        assertToday(1, "10");
+    }
+
+    private void assertUser(long orders, String revenue) {
+        UserOrderStats stats = userOrderStatsRepository.findById("alice").orElseThrow();
+        assertThat(stats.getOrderCount()).isEqualTo(orders);
+        assertThat(stats.getRevenue()).isEqualByComparingTo(revenue);
+    }
+
+    private void assertProduct(String productCode, long orders, long quantity, String revenue) {
+        ProductSalesStats stats = productSalesStatsRepository.findById(productCode).orElseThrow();
+        assertThat(stats.getOrderCount()).isEqualTo(orders);
+        assertThat(stats.getQuantitySold()).isEqualTo(quantity);
+        assertThat(stats.getRevenue()).isEqualByComparingTo(revenue);
+    }
+
+    private void assertToday(long orders, String revenue) {
+        DailySalesStats stats = dailySalesStatsRepository.findById(LocalDate.now(ZoneOffset.UTC)).orElseThrow();
+        assertThat(stats.getOrderCount()).isEqualTo(orders);
+        assertThat(stats.getRevenue()).isEqualByComparingTo(revenue);
+    }
+
+    private static OrderRequest request(OrderLineItemsDto... lines) {
+        return new OrderRequest("alice", List.of(lines));
+    }
+
+    private static OrderLineItemsDto line(String productCode, int price, int quantity) {
+        OrderLineItemsDto dto = new OrderLineItemsDto();
+        dto.setProductCode(productCode);
+        dto.setPrice(BigDecimal.valueOf(price));
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
@@ -0,0 +1,194 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.HoldResponse;
+import com.parashop.order_service.dto.OrderLineItemsDto;
+import com.parashop.order_service.dto.OrderRequest;
+import com.parashop.order_service.model.Order;
+import com.parashop.order_service.model.OrderSaga;
+import com.parashop.order_service.model.OutboxEvent;
+import com.parashop.order_service.repository.OrderRepository;
+import com.parashop.order_service.repository.OrderSagaRepository;
+import com.parashop.order_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1",
+        // Le relais planifié ne doit pas passer entre deux étapes du test : seul le test l'appelle
+        "order.outbox.relay-interval=1d",
+        "order.outbox.purge-cron=-"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OutboxRelay.class, OrderService.class, OutboxService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSagaRepository orderSagaRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    // Couvertes par OrderStatsServiceTest
+    @MockitoBean
+    private OrderStatsService orderStatsService;
+
+    @MockitoBean
+    private StockAvailabilityChecker stockAvailabilityChecker;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        orderSagaRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void reservedStockMovesTheOrderToValidation() {
+        String orderNumber = placeOrder();
+        when(inventoryClient.placeHolds(anyList())).thenReturn(List.of(hold(orderNumber, true)));
+
+        outboxRelay.relay();
+
+        assertThat(status(orderNumber)).isEqualTo("PENDING_VALIDATION");
+        assertThat(sagaState(orderNumber)).isEqualTo(OrderSaga.STOCK_RESERVED);
+        assertThat(pendingEvents()).isEmpty();
+    }
+
+    @Test
+    void refusedStockRejectsTheOrder() {
+        String orderNumber = placeOrder();
+        when(inventoryClient.placeHolds(anyList())).thenReturn(List.of(hold(orderNumber, false)));
+
+        outboxRelay.relay();
+
+        assertThat(status(orderNumber)).isEqualTo("REJECTED");
+        assertThat(sagaState(orderNumber)).isEqualTo(OrderSaga.REJECTED);
+        assertThat(pendingEvents()).isEmpty();
+        verify(inventoryClient, never()).releaseHolds(anyList());
+    }
+
+    @Test
+    void failedCallIsRetriedOnTheNextRun() {
+        String orderNumber = placeOrder();
+        when(inventoryClient.placeHolds(anyList()))
+                .thenThrow(new IllegalStateException("inventaire injoignable"))
+                .thenReturn(List.of(hold(orderNumber, true)));
+
+        outboxRelay.relay();
+
+        assertThat(status(orderNumber)).isEqualTo("PENDING_STOCK");
+        OutboxEvent failed = pendingEvents().get(0);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).isEqualTo("inventaire injoignable");
+        assertThat(failed.getNextAttemptAt()).isAfter(Instant.now());
+
+        // Fin du délai d'attente
+        failed.setNextAttemptAt(Instant.now());
+        outboxEventRepository.save(failed);
+        outboxRelay.relay();
+
+        assertThat(status(orderNumber)).isEqualTo("PENDING_VALIDATION");
+        assertThat(sagaState(orderNumber)).isEqualTo(OrderSaga.STOCK_RESERVED);
+        assertThat(pendingEvents()).isEmpty();
+    }
+
+    @Test
+    void errorOnOneReferenceRetriesOnlyThatOrder() {
+        String failing = placeOrder();
+        String reserved = placeOrder();
+        when(inventoryClient.placeHolds(anyList())).thenReturn(List.of(
+                new HoldResponse(failing, false, "ERROR", List.of(), null), hold(reserved, true)));
+
+        outboxRelay.relay();
+
+        assertThat(status(reserved)).isEqualTo("PENDING_VALIDATION");
+        // Erreur de l'inventaire, pas un refus : la commande attend le prochain essai
+        assertThat(status(failing)).isEqualTo("PENDING_STOCK");
+        assertThat(pendingEvents()).singleElement().satisfies(event -> {
+            assertThat(event.getAggregateId()).isEqualTo(failing);
+            assertThat(event.getAttempts()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void orderCancelledWhileTheReservationIsInFlightGetsItsStockBack() {
+        String orderNumber = placeOrder();
+        when(inventoryClient.placeHolds(anyList())).thenAnswer(invocation -> {
+            // Le client annule pendant que l'inventaire pose la réservation
+            orderService.cancelOrder(orderRepository.findByOrderNumber(orderNumber).orElseThrow().getId());
+            return List.of(hold(orderNumber, true));
+        });
+        when(inventoryClient.releaseHolds(anyList())).thenReturn(List.of(hold(orderNumber, true)));
+
+        outboxRelay.relay();
+
+        assertThat(status(orderNumber)).isEqualTo("CANCELLED");
+        assertThat(pendingEvents()).extracting(OutboxEvent::getType).containsOnly(OutboxEvent.RELEASE_STOCK);
+
+        outboxRelay.relay();
+
+        verify(inventoryClient).releaseHolds(List.of(orderNumber, orderNumber));
+        assertThat(sagaState(orderNumber)).isEqualTo(OrderSaga.RELEASED);
+        assertThat(pendingEvents()).isEmpty();
+    }
+
+    private String placeOrder() {
+        OrderLineItemsDto line = new OrderLineItemsDto();
+        line.setProductCode("P1");
+        line.setPrice(BigDecimal.TEN);
+        line.setQuantity(2);
+        return orderService.placeOrder(new OrderRequest("alice", List.of(line))).getOrderNumber();
+    }
+
+    private static HoldResponse hold(String orderNumber, boolean success) {
+        return new HoldResponse(orderNumber, success, success ? "HELD" : "REJECTED",
+                success ? List.of() : List.of("P1"), null);
+    }
+
+    private String status(String orderNumber) {
+        return orderRepository.findByOrderNumber(orderNumber).map(Order::getStatus).orElseThrow();
+    }
+
+    private String sagaState(String orderNumber) {
+        return orderSagaRepository.findByOrderNumber(orderNumber).map(OrderSaga::getState).orElseThrow();
+    }
+
+    private List<OutboxEvent> pendingEvents() {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> OutboxEvent.PENDING.equals(event.getStatus()))
+                .toList();
+    }
+}
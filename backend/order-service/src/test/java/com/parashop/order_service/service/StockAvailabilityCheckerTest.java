@@ -0,0 +1,47 @@
+package com.parashop.order_service.service;
+
+import com.parashop.order_service.client.InventoryClient;
+import com.parashop.order_service.dto.AvailabilityResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockAvailabilityCheckerTest {
+
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final StockAvailabilityChecker checker = new StockAvailabilityChecker(inventoryClient, new CallLatencyRecorder());
+
+    @AfterEach
+    void stop() {
+        checker.stopExecutor();
+    }
+
+    @Test
+    void firstUnavailableLineCancelsTheQueuedChecks() {
+        // Un seul thread : les lignes suivantes attendent dans la file pendant l'appel de la première
+        ReflectionTestUtils.setField(checker, "threads", 1);
+        ReflectionTestUtils.setField(checker, "queueCapacity", 10);
+        ReflectionTestUtils.setField(checker, "deadline", Duration.ofSeconds(5));
+        checker.startExecutor();
+        when(inventoryClient.isInStock(anyString(), anyInt())).thenReturn(true);
+        when(inventoryClient.isInStock("A_RUPTURE", 1)).thenReturn(false);
+
+        AvailabilityResponse response = checker.check(Map.of("A_RUPTURE", 1, "B", 1, "C", 1, "D", 1));
+
+        assertThat(response.isAvailable()).isFalse();
+        assertThat(response.isTimedOut()).isFalse();
+        assertThat(response.getUnavailableProductCodes()).containsExactly("A_RUPTURE");
+        verify(inventoryClient, times(1)).isInStock(anyString(), anyInt());
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "inventory-service")
@@ -16,6 +17,12 @@ public interface InventoryClient {
     @PostMapping("/api/inventory/update")
     void updateInventory(@RequestBody Map<String, Object> updateDto);
 
+    @PostMapping("/api/inventory/update/batch")
+    void updateInventoryBatch(@RequestBody List<Map<String, Object>> updateDtos);
+
     @GetMapping("/api/inventory/quantity")
     Integer getQuantity(@RequestParam String productCode);
+
+    @PostMapping("/api/inventory/quantities")
+    Map<String, Integer> getQuantities(@RequestBody List<String> productCodes);
 }
@@ -0,0 +1,46 @@
+package com.parashop.product_service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.parashop.product_service.dto.ProductPageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATALOG = "catalog";
+    public static final String CATALOG_PAGES = "catalogPages";
+    public static final String CATEGORIES = "categories";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${product.cache.maximum-weight:20000}") long maximumWeight,
+                                     @Value("${product.cache.expire-after-write:30s}") Duration expireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CATALOG, CATALOG_PAGES, CATEGORIES);
+        // Le poids d'une entrée est son nombre d'éléments : la borne porte sur le nombre de produits en mémoire.
+        // L'expiration borne le retard sur le stock, qui est modifié dans inventory-service.
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(CacheConfig::weigh)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        return cacheManager;
+    }
+
+    private static int weigh(Object key, Object value) {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof ProductPageResponse page && page.getItems() != null) {
+            return Math.max(1, page.getItems().size());
+        }
+        return 1;
+    }
+}
@@ -1,9 +1,11 @@
 package com.parashop.product_service.config;
 
 import com.parashop.product_service.model.Category;
+import com.parashop.product_service.repository.CatalogChangeRepository;
 import com.parashop.product_service.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
@@ -14,6 +16,8 @@ import java.util.List;
 public class DataInitializer implements CommandLineRunner {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public void run(String... args) throws Exception {
@@ -32,5 +36,13 @@ public class DataInitializer implements CommandLineRunner {
                 categoryRepository.save(Category.builder().name(name).build())
             );
         }
+
+        // Première version du catalogue : tout l'existant est considéré comme créé
+        if (catalogChangeRepository.count() == 0) {
+            jdbcTemplate.update("insert into catalog_change (entity_type, entity_id, change_type, changed_at) " +
+                    "select 'CATEGORY', id, 'UPSERT', current_timestamp from category order by id");
+            jdbcTemplate.update("insert into catalog_change (entity_type, entity_id, change_type, changed_at) " +
+                    "select 'PRODUCT', id, 'UPSERT', current_timestamp from product order by id");
+        }
     }
 }
@@ -1,21 +1,54 @@
 package com.parashop.product_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${product.images.dir:uploads/images}")
+    private String imageDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadDir = Paths.get("uploads/images");
-        String uploadPath = uploadDir.toFile().getAbsolutePath();
+        Path uploadDir = Paths.get(imageDir).toAbsolutePath();
+        String uploadPath = uploadDir.toUri().toString();
+        if (!uploadPath.endsWith("/")) {
+            uploadPath += "/";
+        }
 
+        // Les noms de fichiers sont uniques (empreinte ou UUID) : le contenu d'une URL ne change jamais.
+        // Le handler gère aussi les requêtes conditionnelles (If-None-Match) et les Range.
         registry.addResourceHandler("/api/product/images/**")
-                .addResourceLocations("file:/" + uploadPath + "/");
+                .addResourceLocations(uploadPath)
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .setEtagGenerator(WebConfig::etag);
+    }
+
+    private static String etag(Resource resource) {
+        String fileName = resource.getFilename();
+        if (fileName == null) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        if (baseName.matches("[0-9a-f]{64}(_[a-z]+)?")) {
+            return baseName;
+        }
+        // Anciennes images (nom UUID) : taille + date de modification
+        try {
+            return Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(resource.lastModified());
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,31 @@
+package com.parashop.product_service.controller;
+
+import com.parashop.product_service.dto.ProductSuggestion;
+import com.parashop.product_service.service.ProductAutocompleteIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/product/autocomplete")
+@RequiredArgsConstructor
+public class AutocompleteController {
+
+    private final ProductAutocompleteIndex autocompleteIndex;
+
+    @GetMapping
+    public List<ProductSuggestion> suggest(@RequestParam String prefix,
+                                           @RequestParam(required = false, defaultValue = "10") int limit) {
+        return autocompleteIndex.suggest(prefix, Math.min(limit, ProductAutocompleteIndex.TOP_K));
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return autocompleteIndex.getStats();
+    }
+}
@@ -1,8 +1,10 @@
 package com.parashop.product_service.controller;
 
+import com.parashop.product_service.config.CacheConfig;
 import com.parashop.product_service.model.Category;
 import com.parashop.product_service.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,6 +20,7 @@ public class CategoryController {
     private final CategoryRepository categoryRepository;
 
     @GetMapping
+    @Cacheable(CacheConfig.CATEGORIES)
     public List<String> getAllCategories() {
         return categoryRepository.findAll().stream()
                 .map(Category::getName)
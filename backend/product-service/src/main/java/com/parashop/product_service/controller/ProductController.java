@@ -1,12 +1,24 @@
 package com.parashop.product_service.controller;
 
+import com.parashop.product_service.dto.CatalogDeltaResponse;
+import com.parashop.product_service.dto.ImportJobResponse;
+import com.parashop.product_service.dto.ProductPageResponse;
 import com.parashop.product_service.dto.ProductRequest;
 import com.parashop.product_service.dto.ProductResponse;
+import com.parashop.product_service.dto.ProductSearchResponse;
+import com.parashop.product_service.service.ImportJobService;
+import com.parashop.product_service.service.ProductExportService;
 import com.parashop.product_service.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -15,6 +27,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ImportJobService importJobService;
+    private final ProductExportService productExportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -23,9 +37,50 @@ public class ProductController {
     }
 
     @GetMapping
+    public ResponseEntity<List<ProductResponse>> getAllProducts(@RequestParam(required = false, defaultValue = "false") boolean filterStock) {
+        ProductService.Catalog catalog = productService.getAllProducts(filterStock);
+        // ETag mis en cache avec le catalogue : si If-None-Match correspond, Spring répond 304 sans corps
+        return ResponseEntity.ok().eTag(catalog.etag()).body(catalog.products());
+    }
+
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public CatalogDeltaResponse getChanges(@RequestParam(required = false, defaultValue = "0") long since) {
+        return productService.getChangesSince(since);
+    }
+
+    @GetMapping("/page")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts(@RequestParam(required = false, defaultValue = "false") boolean filterStock) {
-        return productService.getAllProducts(filterStock);
+    public ProductPageResponse getProductPage(@RequestParam(required = false) Long afterId,
+                                              @RequestParam(required = false, defaultValue = "20") int size,
+                                              @RequestParam(required = false) String category,
+                                              @RequestParam(required = false) BigDecimal minPrice,
+                                              @RequestParam(required = false) BigDecimal maxPrice,
+                                              @RequestParam(required = false, defaultValue = "false") boolean inStock) {
+        return productService.getProductPage(afterId, size, category, minPrice, maxPrice, inStock);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductSearchResponse search(@RequestParam String q,
+                                        @RequestParam(required = false) String category,
+                                        @RequestParam(required = false, defaultValue = "0") int offset,
+                                        @RequestParam(required = false, defaultValue = "20") int limit) {
+        return productService.search(q, category, offset, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false, defaultValue = "csv") String format) {
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalogue.ndjson\"")
+                    .body(productExportService::exportNdjson);
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalogue.csv\"")
+                .body(productExportService::exportCsv);
     }
 
     @PutMapping("/{id}")
@@ -46,6 +101,24 @@ public class ProductController {
         return productService.uploadBulk(file);
     }
 
+    @PostMapping("/bulk/jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ImportJobResponse submitBulkJob(@RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
+        return importJobService.submit(file);
+    }
+
+    @GetMapping("/bulk/jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ImportJobResponse getBulkJob(@PathVariable String jobId) {
+        return importJobService.getJob(jobId);
+    }
+
+    @GetMapping("/bulk/jobs/{jobId}/errors")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductRequest> getBulkJobErrors(@PathVariable String jobId) {
+        return importJobService.getInvalidEntries(jobId);
+    }
+
     @PostMapping("/upload-image")
     @ResponseStatus(HttpStatus.OK)
     public String uploadImage(@RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
@@ -0,0 +1,21 @@
+package com.parashop.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogDeltaResponse {
+    private long fromVersion;
+    private long toVersion; // à renvoyer en "since" au prochain appel
+    private boolean hasMore;
+    private List<ProductResponse> upserts;
+    private List<Long> deletedProductIds;
+    private List<String> categories; // liste complète, renseignée seulement si les catégories ont changé
+}
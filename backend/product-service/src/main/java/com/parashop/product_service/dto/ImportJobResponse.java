@@ -0,0 +1,26 @@
+package com.parashop.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobResponse {
+    private String id;
+    private String fileName;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private long rowsRead;
+    private long inserted;
+    private long rejected;
+    private double rowsPerSecond;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String errorMessage;
+}
@@ -0,0 +1,4 @@
+package com.parashop.product_service.dto;
+
+public record ProductKey(Long id, String productCode) {
+}
@@ -0,0 +1,18 @@
+package com.parashop.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> items;
+    private Long nextCursor; // id à passer en afterId pour la page suivante, null si dernière page
+    private boolean hasMore;
+}
@@ -34,4 +34,7 @@ public class ProductRequest {
 
     @CsvBindByName(column = "category")
     private String category;
+
+    private Integer rowNumber; // Ligne du fichier CSV, renseignée pour les lignes rejetées
+    private String errorReason;
 }
@@ -20,6 +20,7 @@ public class ProductResponse {
     private BigDecimal discountPrice;
     private String productCode;
     private List<String> imageUrls;
+    private String thumbnailUrl; // première image en 200 px, ou l'image d'origine si elle n'a pas de variante
     private String category;
     private boolean isInStock;
     private Integer quantity;
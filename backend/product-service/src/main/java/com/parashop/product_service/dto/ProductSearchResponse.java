@@ -0,0 +1,20 @@
+package com.parashop.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResponse {
+    private String query;
+    private int total;
+    private List<ProductResponse> results;
+    private Map<String, Integer> categoryFacets;
+}
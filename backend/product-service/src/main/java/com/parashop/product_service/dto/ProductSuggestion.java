@@ -0,0 +1,4 @@
+package com.parashop.product_service.dto;
+
+public record ProductSuggestion(Long id, String name, String productCode, int weight) {
+}
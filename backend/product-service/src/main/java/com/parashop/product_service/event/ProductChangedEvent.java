@@ -0,0 +1,17 @@
+package com.parashop.product_service.event;
+
+import java.util.List;
+
+/**
+ * Publié après chaque écriture du catalogue, une fois les données committées.
+ */
+public record ProductChangedEvent(List<Long> upsertedIds, List<Long> deletedIds) {
+
+    public static ProductChangedEvent upserted(List<Long> ids) {
+        return new ProductChangedEvent(ids, List.of());
+    }
+
+    public static ProductChangedEvent deleted(Long id) {
+        return new ProductChangedEvent(List.of(), List.of(id));
+    }
+}
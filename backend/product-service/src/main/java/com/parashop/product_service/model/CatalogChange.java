@@ -0,0 +1,37 @@
+package com.parashop.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Journal des modifications du catalogue. La version est attribuée après le commit, dans l'ordre des commits,
+ * par {@link com.parashop.product_service.service.CatalogVersionSequencer} : l'id est pris à l'insertion et une
+ * transaction lente pourrait sinon valider un id inférieur à une version déjà lue par un client.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_catalog_change_version", columnNames = "version"),
+        indexes = @Index(name = "idx_catalog_change_pending", columnList = "version, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogChange {
+    public static final String PRODUCT = "PRODUCT";
+    public static final String CATEGORY = "CATEGORY";
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String entityType; // PRODUCT, CATEGORY
+    private Long entityId;
+    private String changeType; // UPSERT, DELETE
+    private Long version; // null tant que le séquenceur ne l'a pas vue validée
+    private Instant changedAt;
+}
@@ -5,10 +5,15 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_category", columnList = "category_id"),
+        @Index(name = "idx_product_price", columnList = "price")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +29,7 @@ public class Product {
     private String productCode;
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private java.util.List<ProductImage> images;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,32 @@
+package com.parashop.product_service.repository;
+
+import com.parashop.product_service.model.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    @Query("select coalesce(max(c.version), 0) from CatalogChange c")
+    long findCurrentVersion();
+
+    List<CatalogChange> findByVersionGreaterThanOrderByVersionAsc(Long version, Pageable pageable);
+
+    List<CatalogChange> findByVersionIsNullOrderByIdAsc(Pageable pageable);
+
+    @Modifying
+    @Query("update CatalogChange c set c.version = :version where c.id = :id and c.version is null")
+    int assignVersion(@Param("id") Long id, @Param("version") Long version);
+
+    // Reprise des journaux antérieurs : leur id servait de version aux clients déjà synchronisés
+    @Modifying
+    @Query("update CatalogChange c set c.version = c.id where c.version is null")
+    int assignLegacyVersions();
+
+    @Query("select count(c) > 0 from CatalogChange c where c.version is not null")
+    boolean anyVersionAssigned();
+}
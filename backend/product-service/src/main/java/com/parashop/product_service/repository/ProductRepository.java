@@ -1,7 +1,58 @@
 package com.parashop.product_service.repository;
 
+import com.parashop.product_service.dto.ProductImageUrl;
+import com.parashop.product_service.dto.ProductKey;
 import com.parashop.product_service.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Chargement du catalogue avec catégorie et images en une seule requête (pas de N+1)
+    @EntityGraph(attributePaths = {"category", "images"})
+    @Query("select p from Product p order by p.id")
+    List<Product> findAllWithDetails();
+
+    @EntityGraph(attributePaths = {"category", "images"})
+    @Query("select p from Product p where p.id in :ids order by p.id")
+    List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"category"})
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select new com.parashop.product_service.dto.ProductKey(p.id, p.productCode) from Product p " +
+           "left join p.category c " +
+           "where p.id > :afterId " +
+           "and (:category is null or c.name = :category) " +
+           "and (:minPrice is null or p.price >= :minPrice) " +
+           "and (:maxPrice is null or p.price <= :maxPrice) " +
+           "order by p.id")
+    List<ProductKey> findCatalogKeys(@Param("afterId") Long afterId,
+                                     @Param("category") String category,
+                                     @Param("minPrice") BigDecimal minPrice,
+                                     @Param("maxPrice") BigDecimal maxPrice,
+                                     Pageable pageable);
+
+    // Curseur JDBC pour l'export : doit être consommé dans une transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p left join fetch p.category order by p.id")
+    Stream<Product> streamAllWithCategory();
+
+    @Query("select new com.parashop.product_service.dto.ProductImageUrl(i.product.id, i.imageUrl) " +
+           "from ProductImage i where i.product.id in :productIds order by i.id")
+    List<ProductImageUrl> findImageUrlsByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,71 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.model.CatalogChange;
+import com.parashop.product_service.repository.CatalogChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Attribue les versions du catalogue aux modifications validées, dans l'ordre où le séquenceur les voit.
+ * Une modification encore en cours n'est pas visible et recevra une version supérieure à tout ce qui a déjà
+ * été servi : un client synchronisé jusqu'à la version N ne peut plus manquer une modification validée plus tard.
+ * Deux instances qui numérotent en même temps se heurtent à la contrainte d'unicité ; la perdante réessaie au passage suivant.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogVersionSequencer {
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${product.catalog.sequencer-batch-size:1000}")
+    private int batchSize;
+
+    private volatile boolean legacyChecked;
+
+    @Scheduled(fixedDelayString = "${product.catalog.sequencer-interval:200ms}")
+    public void assignVersions() {
+        if (!legacyChecked) {
+            assignLegacyVersions();
+            legacyChecked = true;
+        }
+        try {
+            int assigned;
+            do {
+                Integer count = transactionTemplate.execute(status -> {
+                    List<CatalogChange> pending = catalogChangeRepository.findByVersionIsNullOrderByIdAsc(
+                            PageRequest.of(0, batchSize));
+                    long version = catalogChangeRepository.findCurrentVersion();
+                    for (CatalogChange change : pending) {
+                        catalogChangeRepository.assignVersion(change.getId(), ++version);
+                    }
+                    return pending.size();
+                });
+                assigned = count != null ? count : 0;
+            } while (assigned == batchSize);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Versions du catalogue attribuées par une autre instance, nouvel essai au prochain passage");
+        }
+    }
+
+    /**
+     * À la première mise en service seulement : les journaux existants gardent leur id comme version,
+     * celle que les clients déjà synchronisés ont reçue.
+     */
+    private void assignLegacyVersions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!catalogChangeRepository.anyVersionAssigned()) {
+                catalogChangeRepository.assignLegacyVersions();
+            }
+        });
+    }
+}
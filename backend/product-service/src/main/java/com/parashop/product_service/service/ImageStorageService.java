@@ -0,0 +1,152 @@
+package com.parashop.product_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stockage des images par empreinte SHA-256 : une même image envoyée plusieurs fois n'est écrite qu'une fois.
+ * Les variantes "thumb" et "medium" sont générées une seule fois, à la première réception, sous le nom
+ * {@code <empreinte>_<variante>.jpg} ; {@link #variantUrl} en donne l'URL.
+ */
+@Service
+@Slf4j
+public class ImageStorageService {
+
+    private static final Map<String, Integer> VARIANTS = Map.of("thumb", 200, "medium", 800);
+
+    private final Path imageDir;
+    private final String baseUrl;
+
+    public ImageStorageService(@Value("${product.images.dir:uploads/images}") String imageDir,
+                               @Value("${product.images.base-url:http://localhost:8888/api/product/images/}") String baseUrl) {
+        this.imageDir = Paths.get(imageDir);
+        this.baseUrl = baseUrl;
+    }
+
+    public String store(MultipartFile file) {
+        Path tempFile = null;
+        try {
+            Files.createDirectories(imageDir);
+            tempFile = Files.createTempFile(imageDir, "upload-", ".tmp");
+            String hash;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), MessageDigest.getInstance("SHA-256"))) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                hash = HexFormat.of().formatHex(((DigestInputStream) in).getMessageDigest().digest());
+            }
+
+            String fileName = hash + "." + extensionOf(file.getOriginalFilename());
+            Path target = imageDir.resolve(fileName);
+            if (Files.exists(target)) {
+                log.info("Image {} déjà stockée, doublon ignoré", fileName);
+            } else {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                createVariants(target, hash);
+            }
+            return baseUrl + fileName;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("Erreur lors de l'upload de l'image: {}", e.getMessage());
+            throw new RuntimeException("Erreur lors de l'enregistrement de l'image");
+        } finally {
+            // Doublon, échec de copie ou de déplacement : le fichier temporaire ne doit pas rester dans le dossier
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * URL d'une variante ("thumb" : 200 px, "medium" : 800 px) d'une image stockée ici. Retombe sur l'URL d'origine
+     * pour les images externes, les anciennes images (nom UUID) et les formats sans variante.
+     */
+    public String variantUrl(String imageUrl, String variant) {
+        if (imageUrl == null || !VARIANTS.containsKey(variant) || !imageUrl.startsWith(baseUrl)) {
+            return imageUrl;
+        }
+        String fileName = imageUrl.substring(baseUrl.length());
+        int dot = fileName.lastIndexOf('.');
+        String hash = dot > 0 ? fileName.substring(0, dot) : fileName;
+        if (!hash.matches("[0-9a-f]{64}")) {
+            return imageUrl;
+        }
+        String variantName = hash + "_" + variant + ".jpg";
+        return Files.exists(imageDir.resolve(variantName)) ? baseUrl + variantName : imageUrl;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Fichier temporaire {} non supprimé: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private void createVariants(Path original, String hash) {
+        try {
+            BufferedImage image = ImageIO.read(original.toFile());
+            if (image == null) {
+                // Format non lu par ImageIO (webp...) : seul l'original est servi
+                log.info("Pas de variantes pour {}: format non supporté", original.getFileName());
+                return;
+            }
+            for (Map.Entry<String, Integer> variant : VARIANTS.entrySet()) {
+                Path target = imageDir.resolve(hash + "_" + variant.getKey() + ".jpg");
+                if (!Files.exists(target)) {
+                    ImageIO.write(resize(image, variant.getValue()), "jpg", target.toFile());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Erreur lors de la génération des variantes de {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // JPEG n'a pas de transparence : fond blanc
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return resized;
+    }
+
+    private String extensionOf(String fileName) {
+        if (fileName != null) {
+            int dot = fileName.lastIndexOf('.');
+            if (dot >= 0 && dot < fileName.length() - 1) {
+                String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+                if (extension.matches("[a-z0-9]{1,5}")) {
+                    return extension;
+                }
+            }
+        }
+        return "bin";
+    }
+}
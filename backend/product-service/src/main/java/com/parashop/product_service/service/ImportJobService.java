@@ -0,0 +1,142 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.dto.ImportJobResponse;
+import com.parashop.product_service.dto.ProductRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    private final ProductService productService;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${product.import.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${product.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${product.import.job-retention:24h}")
+    private Duration jobRetention;
+
+    private ThreadPoolTaskExecutor importExecutor;
+
+    // Pool dédié et borné : les imports ne prennent jamais les threads des requêtes HTTP
+    @PostConstruct
+    void startExecutor() {
+        importExecutor = new ThreadPoolTaskExecutor();
+        importExecutor.setCorePoolSize(maxConcurrentJobs);
+        importExecutor.setMaxPoolSize(maxConcurrentJobs);
+        importExecutor.setQueueCapacity(queueCapacity);
+        importExecutor.setThreadNamePrefix("product-import-");
+        importExecutor.initialize();
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        importExecutor.shutdown();
+    }
+
+    public ImportJobResponse submit(MultipartFile file) {
+        purgeFinishedJobs();
+
+        ImportJob job = new ImportJob(file.getOriginalFilename());
+        Path csvFile;
+        try {
+            // Le fichier multipart est supprimé à la fin de la requête : on le copie avant de rendre la main
+            csvFile = Files.createTempFile("product-import-", ".csv");
+            file.transferTo(csvFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur lors de l'enregistrement du fichier CSV: " + e.getMessage());
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            importExecutor.execute(() -> run(job, csvFile));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(csvFile);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop d'imports en cours, réessayez plus tard");
+        }
+        log.info("Import {} mis en file pour le fichier {}", job.getId(), job.getFileName());
+        return toResponse(job);
+    }
+
+    public ImportJobResponse getJob(String id) {
+        return toResponse(findJob(id));
+    }
+
+    public List<ProductRequest> getInvalidEntries(String id) {
+        return findJob(id).getInvalidEntries();
+    }
+
+    private void run(ImportJob job, Path csvFile) {
+        job.start();
+        try {
+            job.complete(productService.importFile(csvFile, job));
+        } catch (Exception e) {
+            log.error("Import {} en échec: {}", job.getId(), e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(csvFile);
+        }
+    }
+
+    private ImportJob findJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Import non trouvé avec l'id : " + id);
+        }
+        return job;
+    }
+
+    private void purgeFinishedJobs() {
+        Instant limit = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(limit));
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le fichier temporaire {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        return ImportJobResponse.builder()
+                .id(job.getId())
+                .fileName(job.getFileName())
+                .status(job.getStatus().name())
+                .rowsRead(job.getRowsRead().get())
+                .inserted(job.getInserted().get())
+                .rejected(job.getRejected().get())
+                .rowsPerSecond(job.getRowsPerSecond())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .errorMessage(job.getErrorMessage())
+                .build();
+    }
+}
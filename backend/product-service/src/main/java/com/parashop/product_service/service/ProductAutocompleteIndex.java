@@ -0,0 +1,311 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.client.InventoryClient;
+import com.parashop.product_service.dto.ProductSuggestion;
+import com.parashop.product_service.event.ProductChangedEvent;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.repository.ProductRepository;
+import com.parashop.product_service.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie des noms et codes produits. Chaque noeud garde ses TOP_K meilleures suggestions
+ * (pondérées par le stock), une frappe coûte donc la longueur du préfixe. Les poids sont relus
+ * périodiquement auprès de l'inventaire, par lots, pour suivre les ventes et les réassorts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductAutocompleteIndex {
+
+    public static final int TOP_K = 10;
+    private static final int MAX_KEY_LENGTH = 40;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    // Estimation grossière : objet noeud + map des enfants + liste du top
+    private static final int BYTES_PER_NODE = 160;
+    private static final int BYTES_PER_TOP_ENTRY = 8;
+
+    private static final Comparator<ProductSuggestion> BY_WEIGHT = Comparator
+            .comparingInt(ProductSuggestion::weight).reversed()
+            .thenComparing(ProductSuggestion::name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ProductSuggestion::id);
+
+    private final ProductRepository productRepository;
+    private final InventoryClient inventoryClient;
+
+    private final Node root = new Node();
+    private final Map<Long, ProductSuggestion> suggestions = new HashMap<>();
+    private final Map<Long, Set<String>> keysByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long nodeCount = 1;
+    private long topEntryCount = 0;
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Set<Long> terminals = new HashSet<>(2);
+        private List<ProductSuggestion> top = List.of();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long cursor = 0L;
+        int count = 0;
+        List<Product> batch;
+        do {
+            batch = productRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            index(batch);
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                cursor = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Index d'autocomplétion construit: {} produits, {} noeuds", count, nodeCount);
+    }
+
+    /**
+     * Relit le stock de tous les produits indexés et ne recalcule les tops que le long des clés
+     * des produits dont le poids a changé.
+     */
+    @Scheduled(fixedDelayString = "${product.autocomplete.weight-refresh-interval:5m}",
+            initialDelayString = "${product.autocomplete.weight-refresh-interval:5m}")
+    public void refreshWeights() {
+        List<ProductSuggestion> indexed;
+        lock.readLock().lock();
+        try {
+            indexed = new ArrayList<>(suggestions.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int changed = 0;
+        for (int from = 0; from < indexed.size(); from += REBUILD_BATCH_SIZE) {
+            List<ProductSuggestion> batch = indexed.subList(from, Math.min(from + REBUILD_BATCH_SIZE, indexed.size()));
+            List<String> codes = batch.stream().map(ProductSuggestion::productCode).filter(Objects::nonNull).distinct().toList();
+            if (codes.isEmpty()) {
+                continue;
+            }
+            Map<String, Integer> quantities;
+            try {
+                quantities = inventoryClient.getQuantities(codes);
+            } catch (Exception e) {
+                // Les poids actuels restent en place jusqu'au prochain passage
+                log.warn("Rafraîchissement des poids d'autocomplétion interrompu: {}", e.getMessage());
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (ProductSuggestion previous : batch) {
+                    changed += reweight(previous.id(), quantities) ? 1 : 0;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (changed > 0) {
+            log.info("Poids d'autocomplétion mis à jour pour {} produits", changed);
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.upsertedIds().isEmpty()) {
+            index(productRepository.findAllWithDetailsByIdIn(event.upsertedIds()));
+        }
+        lock.writeLock().lock();
+        try {
+            event.deletedIds().forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            return node.top.subList(0, Math.min(Math.max(limit, 1), node.top.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("products", suggestions.size());
+            stats.put("keys", keysByProduct.values().stream().mapToInt(Set::size).sum());
+            stats.put("nodes", nodeCount);
+            stats.put("topEntries", topEntryCount);
+            stats.put("estimatedBytes", nodeCount * BYTES_PER_NODE + topEntryCount * BYTES_PER_TOP_ENTRY);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(List<Product> products) {
+        Map<String, Integer> quantities = fetchQuantities(products);
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                remove(product.getId());
+                ProductSuggestion suggestion = new ProductSuggestion(product.getId(), product.getName(),
+                        product.getProductCode(), quantities.getOrDefault(product.getProductCode(), 0));
+                Set<String> keys = keysOf(product);
+                suggestions.put(product.getId(), suggestion);
+                keysByProduct.put(product.getId(), keys);
+                for (String key : keys) {
+                    List<Node> path = walk(key, true);
+                    path.get(path.size() - 1).terminals.add(product.getId());
+                    refreshTops(path);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean reweight(Long id, Map<String, Integer> quantities) {
+        ProductSuggestion current = suggestions.get(id);
+        Integer quantity = current != null ? quantities.get(current.productCode()) : null;
+        if (quantity == null || quantity == current.weight()) {
+            return false;
+        }
+        suggestions.put(id, new ProductSuggestion(id, current.name(), current.productCode(), quantity));
+        for (String key : keysByProduct.get(id)) {
+            refreshTops(walk(key, false));
+        }
+        return true;
+    }
+
+    private void remove(Long id) {
+        Set<String> keys = keysByProduct.remove(id);
+        if (keys == null) {
+            return;
+        }
+        suggestions.remove(id);
+        for (String key : keys) {
+            List<Node> path = walk(key, false);
+            if (path.size() == key.length() + 1) {
+                path.get(path.size() - 1).terminals.remove(id);
+            }
+            refreshTops(path);
+            prune(key, path);
+        }
+    }
+
+    private List<Node> walk(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    break;
+                }
+                child = new Node();
+                node.children.put(key.charAt(i), child);
+                nodeCount++;
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Recalcule le top de chaque noeud du chemin, de la feuille vers la racine
+    private void refreshTops(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Map<Long, ProductSuggestion> candidates = new LinkedHashMap<>();
+            node.terminals.stream().map(suggestions::get).filter(Objects::nonNull)
+                    .forEach(suggestion -> candidates.put(suggestion.id(), suggestion));
+            // Toujours la version courante de la suggestion : le top d'un enfant hors du chemin peut porter un ancien poids
+            node.children.values().forEach(child -> child.top.stream()
+                    .map(suggestion -> suggestions.get(suggestion.id()))
+                    .filter(Objects::nonNull)
+                    .forEach(suggestion -> candidates.put(suggestion.id(), suggestion)));
+
+            List<ProductSuggestion> top = candidates.values().stream().sorted(BY_WEIGHT).limit(TOP_K).toList();
+            topEntryCount += top.size() - node.top.size();
+            node.top = top;
+        }
+    }
+
+    private void prune(String key, List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.children.isEmpty() || !node.terminals.isEmpty()) {
+                return;
+            }
+            path.get(i - 1).children.remove(key.charAt(i - 1));
+            topEntryCount -= node.top.size();
+            nodeCount--;
+        }
+    }
+
+    private Set<String> keysOf(Product product) {
+        Set<String> keys = new LinkedHashSet<>();
+        // Chaque mot du nom est un point d'entrée : "crème" trouve "Avène Crème Hydratante"
+        String name = TextNormalizer.normalize(product.getName());
+        if (!name.isEmpty()) {
+            String[] words = name.split("\\s+");
+            for (int i = 0; i < words.length; i++) {
+                keys.add(truncate(String.join(" ", List.of(words).subList(i, words.length))));
+            }
+        }
+        String code = TextNormalizer.normalize(product.getProductCode());
+        if (!code.isEmpty()) {
+            keys.add(truncate(code));
+        }
+        return keys;
+    }
+
+    private String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private Map<String, Integer> fetchQuantities(List<Product> products) {
+        List<String> codes = products.stream().map(Product::getProductCode).filter(Objects::nonNull).distinct().toList();
+        if (codes.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return inventoryClient.getQuantities(codes);
+        } catch (Exception e) {
+            log.error("Erreur lors de la récupération du stock pour l'autocomplétion: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.parashop.product_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import com.parashop.product_service.client.InventoryClient;
+import com.parashop.product_service.dto.ProductImageUrl;
+import com.parashop.product_service.dto.ProductResponse;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Export du catalogue en flux : les produits sont lus par curseur et écrits par paquets,
+ * la mémoire utilisée ne dépend pas de la taille du catalogue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductExportService {
+
+    private static final int CHUNK_SIZE = 500;
+    // Même colonnes que l'import bulk, le fichier exporté peut être ré-importé
+    private static final String[] CSV_HEADER =
+            {"name", "description", "price", "discountPrice", "productCode", "imageUrls", "quantity", "category"};
+
+    private final ProductRepository productRepository;
+    private final InventoryClient inventoryClient;
+    private final ImageStorageService imageStorageService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    public void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CSVWriter csvWriter = new CSVWriter(writer);
+        csvWriter.writeNext(CSV_HEADER);
+        export(chunk -> {
+            for (ProductResponse product : chunk) {
+                csvWriter.writeNext(new String[]{
+                        product.getName(),
+                        product.getDescription(),
+                        product.getPrice() != null ? product.getPrice().toPlainString() : null,
+                        product.getDiscountPrice() != null ? product.getDiscountPrice().toPlainString() : null,
+                        product.getProductCode(),
+                        String.join(",", product.getImageUrls()),
+                        String.valueOf(product.getQuantity()),
+                        product.getCategory()
+                });
+            }
+            flush(writer);
+        });
+        csvWriter.flush();
+    }
+
+    public void exportNdjson(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        export(chunk -> {
+            try {
+                for (ProductResponse product : chunk) {
+                    writer.write(objectMapper.writeValueAsString(product));
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            flush(writer);
+        });
+        writer.flush();
+    }
+
+    private void export(Consumer<List<ProductResponse>> chunkWriter) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            int count = 0;
+            try (Stream<Product> products = productRepository.streamAllWithCategory()) {
+                Iterator<Product> iterator = products.iterator();
+                List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                        chunkWriter.accept(toResponses(chunk));
+                        count += chunk.size();
+                        chunk.clear();
+                        // Détache les entités déjà écrites pour garder un tas plat
+                        entityManager.clear();
+                    }
+                }
+            }
+            log.info("Export du catalogue terminé: {} produits", count);
+        });
+    }
+
+    private List<ProductResponse> toResponses(List<Product> chunk) {
+        Map<Long, List<String>> imageUrls = new HashMap<>();
+        productRepository.findImageUrlsByProductIdIn(chunk.stream().map(Product::getId).toList())
+                .forEach(image -> imageUrls.computeIfAbsent(image.productId(), id -> new ArrayList<>()).add(image.imageUrl()));
+
+        Map<String, Integer> quantities = new HashMap<>();
+        List<String> codes = chunk.stream().map(Product::getProductCode).filter(Objects::nonNull).distinct().toList();
+        try {
+            if (!codes.isEmpty()) {
+                quantities.putAll(inventoryClient.getQuantities(codes));
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors de la récupération du stock pour l'export: {}", e.getMessage());
+        }
+
+        return chunk.stream()
+                .map(product -> {
+                    Integer quantity = quantities.getOrDefault(product.getProductCode(), 0);
+                    List<String> productImages = imageUrls.getOrDefault(product.getId(), List.of());
+                    return ProductResponse.builder()
+                            .id(product.getId())
+                            .name(product.getName())
+                            .description(product.getDescription())
+                            .price(product.getPrice())
+                            .discountPrice(product.getDiscountPrice())
+                            .productCode(product.getProductCode())
+                            .imageUrls(productImages)
+                            .thumbnailUrl(productImages.isEmpty() ? null
+                                    : imageStorageService.variantUrl(productImages.get(0), "thumb"))
+                            .category(product.getCategory() != null ? product.getCategory().getName() : null)
+                            .isInStock(quantity != null && quantity > 0)
+                            .quantity(quantity)
+                            .build();
+                })
+                .toList();
+    }
+
+    private void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.parashop.product_service.service;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.bean.HeaderColumnNameMappingStrategy;
+import com.opencsv.exceptions.CsvException;
+import com.parashop.product_service.client.InventoryClient;
+import com.parashop.product_service.config.CacheConfig;
+import com.parashop.product_service.dto.ProductRequest;
+import com.parashop.product_service.event.ProductChangedEvent;
+import com.parashop.product_service.model.CatalogChange;
+import com.parashop.product_service.model.Category;
+import com.parashop.product_service.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    private static final String INSERT_PRODUCT =
+            "insert into product (id, name, description, price, discount_price, product_code, category_id) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE = "insert into product_image (image_url, product_id) values (?, ?)";
+    private static final String INSERT_CHANGE =
+            "insert into catalog_change (entity_type, entity_id, change_type, changed_at) values (?, ?, ?, ?)";
+    // Réserve les ids de la séquence identity pour pouvoir insérer les produits et leurs images en batch
+    private static final String NEXT_PRODUCT_IDS =
+            "select nextval(pg_get_serial_sequence('product', 'id')) from generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final InventoryClient inventoryClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+
+    @Value("${product.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Lit le CSV ligne par ligne et insère les produits valides par lots.
+     * Retourne les lignes rejetées avec leur numéro de ligne et la raison du rejet.
+     */
+    public List<ProductRequest> importCsv(Reader reader, ImportJob job) throws IOException, CsvException {
+        CSVReader csvReader = new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder().withIgnoreLeadingWhiteSpace(true).build())
+                .build();
+        HeaderColumnNameMappingStrategy<ProductRequest> strategy = new HeaderColumnNameMappingStrategy<>();
+        strategy.setType(ProductRequest.class);
+        strategy.captureHeader(csvReader);
+
+        Map<String, Category> categories = new HashMap<>();
+        categoryRepository.findAll().forEach(category -> categories.put(category.getName(), category));
+
+        List<ProductRequest> invalidEntries = new ArrayList<>();
+        List<ProductRequest> batch = new ArrayList<>(batchSize);
+        int successCount = 0;
+        String[] line;
+        while ((line = csvReader.readNext()) != null) {
+            int rowNumber = (int) csvReader.getLinesRead();
+            if (isBlank(line)) {
+                continue;
+            }
+            job.getRowsRead().incrementAndGet();
+
+            ProductRequest request;
+            try {
+                request = strategy.populateNewBean(line);
+            } catch (CsvException | RuntimeException e) {
+                request = ProductRequest.builder().name(line[0]).build();
+                reject(job, invalidEntries, request, rowNumber, "Ligne illisible: " + e.getMessage());
+                continue;
+            }
+            request.setRowNumber(rowNumber);
+
+            String reason = validate(request);
+            if (reason != null) {
+                reject(job, invalidEntries, request, rowNumber, reason);
+                continue;
+            }
+
+            batch.add(request);
+            if (batch.size() >= batchSize) {
+                successCount += flush(job, batch, categories, invalidEntries);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            successCount += flush(job, batch, categories, invalidEntries);
+        }
+
+        log.info("Import terminé: {} succès, {} à corriger", successCount, invalidEntries.size());
+        return invalidEntries;
+    }
+
+    private int flush(ImportJob job, List<ProductRequest> batch, Map<String, Category> categories, List<ProductRequest> invalidEntries) {
+        List<ProductRequest> inserted = new ArrayList<>(batch);
+        List<Long> insertedIds = new ArrayList<>();
+        createMissingCategories(batch, categories);
+        try {
+            insertedIds.addAll(transactionTemplate.execute(status -> insertBatch(batch, categories)));
+        } catch (Exception e) {
+            // Le lot est annulé : on rejoue ligne par ligne pour isoler les lignes fautives
+            log.warn("Echec de l'insertion du lot ({} lignes), reprise ligne par ligne: {}", batch.size(), e.getMessage());
+            inserted.clear();
+            insertedIds.clear();
+            for (ProductRequest request : batch) {
+                try {
+                    insertedIds.addAll(transactionTemplate.execute(status -> insertBatch(List.of(request), categories)));
+                    inserted.add(request);
+                } catch (Exception rowError) {
+                    reject(job, invalidEntries, request, request.getRowNumber(), "Erreur d'insertion: " + rowError.getMessage());
+                }
+            }
+        }
+        job.getInserted().addAndGet(inserted.size());
+        if (!insertedIds.isEmpty()) {
+            // Vidé après chaque lot committé : un import interrompu plus loin ne laisse pas le catalogue en cache périmé
+            clearCaches(CacheConfig.CATALOG, CacheConfig.CATALOG_PAGES);
+            eventPublisher.publishEvent(ProductChangedEvent.upserted(insertedIds));
+        }
+        initStock(inserted);
+        return inserted.size();
+    }
+
+    private List<Long> insertBatch(List<ProductRequest> requests, Map<String, Category> categories) {
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_PRODUCT_IDS, Long.class, requests.size());
+
+        List<Object[]> productRows = new ArrayList<>(requests.size());
+        List<Object[]> imageRows = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductRequest request = requests.get(i);
+            Long id = ids.get(i);
+            Category category = resolveCategory(request.getCategory(), categories);
+            productRows.add(new Object[]{
+                    id,
+                    request.getName(),
+                    request.getDescription(),
+                    request.getPrice(),
+                    request.getDiscountPrice(),
+                    request.getProductCode(),
+                    category != null ? category.getId() : null
+            });
+            imageUrls(request).forEach(url -> imageRows.add(new Object[]{url, id}));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, productRows);
+        if (!imageRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, imageRows);
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, ids.stream()
+                .map(id -> new Object[]{CatalogChange.PRODUCT, id, CatalogChange.UPSERT, now})
+                .toList());
+        return ids;
+    }
+
+    private void initStock(List<ProductRequest> inserted) {
+        List<Map<String, Object>> stockUpdates = inserted.stream()
+                .filter(request -> request.getQuantity() != null && request.getQuantity() > 0)
+                .map(request -> {
+                    Map<String, Object> stockUpdate = new HashMap<>();
+                    stockUpdate.put("productCode", request.getProductCode());
+                    stockUpdate.put("quantity", request.getQuantity());
+                    stockUpdate.put("unit", "PIECE");
+                    return stockUpdate;
+                })
+                .toList();
+        if (stockUpdates.isEmpty()) {
+            return;
+        }
+        try {
+            inventoryClient.updateInventoryBatch(stockUpdates);
+        } catch (Exception e) {
+            // Non-blocking error, comme pour la création unitaire
+            log.error("Erreur lors de l'initialisation du stock pour {} produits: {}", stockUpdates.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Les nouvelles catégories sont créées dans leur propre transaction, avant le lot : si le lot est annulé,
+     * le cache de l'import ne garde pas une catégorie dont l'insertion aurait été annulée avec lui.
+     */
+    private void createMissingCategories(List<ProductRequest> batch, Map<String, Category> categories) {
+        batch.stream()
+                .map(ProductRequest::getCategory)
+                .filter(name -> name != null && !name.trim().isEmpty() && !categories.containsKey(name))
+                .distinct()
+                .forEach(name -> {
+                    try {
+                        categories.put(name, transactionTemplate.execute(status -> categoryRepository.findByName(name)
+                                .orElseGet(() -> {
+                                    Category created = categoryRepository.save(Category.builder().name(name).build());
+                                    jdbcTemplate.update(INSERT_CHANGE, CatalogChange.CATEGORY, created.getId(),
+                                            CatalogChange.UPSERT, Timestamp.from(Instant.now()));
+                                    return created;
+                                })));
+                        clearCaches(CacheConfig.CATEGORIES);
+                    } catch (Exception e) {
+                        // Les lignes de cette catégorie seront rejetées à la reprise ligne par ligne
+                        log.warn("Impossible de créer la catégorie {}: {}", name, e.getMessage());
+                    }
+                });
+    }
+
+    private void clearCaches(String... cacheNames) {
+        for (String name : cacheNames) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private Category resolveCategory(String categoryName, Map<String, Category> categories) {
+        if (categoryName == null || categoryName.trim().isEmpty()) {
+            return null;
+        }
+        Category category = categories.get(categoryName);
+        if (category == null) {
+            throw new IllegalArgumentException("Catégorie indisponible: " + categoryName);
+        }
+        return category;
+    }
+
+    private List<String> imageUrls(ProductRequest request) {
+        if (request.getImageUrlsCsv() == null) {
+            return List.of();
+        }
+        return Arrays.stream(request.getImageUrlsCsv().split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    private String validate(ProductRequest request) {
+        if (request.getName() == null || request.getName().isEmpty()) {
+            return "Nom manquant";
+        }
+        if (request.getPrice() == null) {
+            return "Prix manquant";
+        }
+        if (request.getProductCode() == null || request.getProductCode().isEmpty()) {
+            return "Code produit manquant";
+        }
+        return null;
+    }
+
+    private void reject(ImportJob job, List<ProductRequest> invalidEntries, ProductRequest request, int rowNumber, String reason) {
+        job.getRejected().incrementAndGet();
+        request.setRowNumber(rowNumber);
+        request.setErrorReason(reason);
+        invalidEntries.add(request);
+    }
+
+    private boolean isBlank(String[] line) {
+        return line.length == 1 && line[0].isBlank();
+    }
+}
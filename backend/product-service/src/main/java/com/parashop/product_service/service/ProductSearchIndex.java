@@ -0,0 +1,233 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.event.ProductChangedEvent;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.repository.ProductRepository;
+import com.parashop.product_service.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire sur le nom, la description, le code et la catégorie des produits.
+ * Les termes sont normalisés sans accents ("Hygiène" et "hygiene" sont le même terme).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CODE_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Protège l'index en construction ; toujours pris après le verrou d'écriture, jamais avant
+    private final Object rebuildLock = new Object();
+    private Index index = new Index();
+    private Index rebuilding;
+    private Set<Long> changedDuringRebuild;
+
+    public record SearchResult(int total, List<Long> productIds, Map<String, Integer> categoryFacets) {
+    }
+
+    private record IndexedProduct(String category, Map<String, Float> terms) {
+    }
+
+    private static final class Index {
+        // terme -> (id produit -> poids du terme dans le produit)
+        private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+        private final Map<Long, IndexedProduct> products = new HashMap<>();
+
+        private void add(Product product) {
+            remove(product.getId());
+            Map<String, Float> terms = new HashMap<>();
+            addTerms(terms, product.getName(), NAME_WEIGHT);
+            addTerms(terms, product.getProductCode(), CODE_WEIGHT);
+            addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+            String category = product.getCategory() != null ? product.getCategory().getName() : null;
+            addTerms(terms, category, CATEGORY_WEIGHT);
+
+            products.put(product.getId(), new IndexedProduct(category, terms));
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), weight));
+        }
+
+        private void remove(Long id) {
+            IndexedProduct previous = products.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous.terms().keySet()) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(id);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Construit un nouvel index à côté de l'index servi, qui continue de répondre, puis le met en place d'un coup.
+     * Les produits modifiés pendant la construction sont relus avant la bascule.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Index next = new Index();
+        synchronized (rebuildLock) {
+            rebuilding = next;
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            long cursor = 0L;
+            int count = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                List<Product> loaded = batch;
+                synchronized (rebuildLock) {
+                    loaded.forEach(next::add);
+                }
+                count += batch.size();
+                if (!batch.isEmpty()) {
+                    cursor = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            // Un lot lu juste avant un commit peut avoir écrasé la version plus récente reçue par événement
+            Set<Long> changed;
+            synchronized (rebuildLock) {
+                changed = new HashSet<>(changedDuringRebuild);
+            }
+            if (!changed.isEmpty()) {
+                List<Product> reloaded = productRepository.findAllWithDetailsByIdIn(changed);
+                synchronized (rebuildLock) {
+                    reloaded.forEach(product -> {
+                        next.add(product);
+                        changed.remove(product.getId());
+                    });
+                    changed.forEach(next::remove);
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                synchronized (rebuildLock) {
+                    index = next;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index de recherche construit: {} produits", count);
+        } finally {
+            synchronized (rebuildLock) {
+                rebuilding = null;
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        List<Product> upserted = event.upsertedIds().isEmpty()
+                ? List.of()
+                : productRepository.findAllWithDetailsByIdIn(event.upsertedIds());
+        lock.writeLock().lock();
+        try {
+            upserted.forEach(index::add);
+            event.deletedIds().forEach(index::remove);
+            // Pendant une reconstruction, le nouvel index reçoit aussi la modification
+            synchronized (rebuildLock) {
+                if (rebuilding != null) {
+                    upserted.forEach(rebuilding::add);
+                    event.deletedIds().forEach(rebuilding::remove);
+                    changedDuringRebuild.addAll(event.upsertedIds());
+                    changedDuringRebuild.addAll(event.deletedIds());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, String category, int offset, int limit) {
+        List<String> queryTerms = TextNormalizer.tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(0, List.of(), Map.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            // On part du terme le plus rare pour limiter le nombre de candidats
+            List<Map<Long, Float>> termPostings = new ArrayList<>();
+            for (String term : queryTerms) {
+                Map<Long, Float> docs = index.postings.get(term);
+                if (docs == null) {
+                    return new SearchResult(0, List.of(), Map.of());
+                }
+                termPostings.add(docs);
+            }
+            termPostings.sort(Comparator.comparingInt(Map::size));
+
+            int totalProducts = index.products.size();
+            Map<Long, Float> scores = new HashMap<>();
+            Map<String, Integer> facets = new LinkedHashMap<>();
+            for (Long id : termPostings.get(0).keySet()) {
+                float score = 0f;
+                boolean matchesAll = true;
+                for (Map<Long, Float> docs : termPostings) {
+                    Float weight = docs.get(id);
+                    if (weight == null) {
+                        matchesAll = false;
+                        break;
+                    }
+                    score += weight * (float) Math.log(1 + (double) totalProducts / docs.size());
+                }
+                if (!matchesAll) {
+                    continue;
+                }
+                String productCategory = index.products.get(id).category();
+                if (productCategory != null) {
+                    facets.merge(productCategory, 1, Integer::sum);
+                }
+                if (category == null || category.equals(productCategory)) {
+                    scores.put(id, score);
+                }
+            }
+
+            List<Long> ranked = scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .skip(Math.max(offset, 0))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new SearchResult(scores.size(), ranked, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        TextNormalizer.tokenize(text).forEach(term -> terms.merge(term, weight, Float::sum));
+    }
+}
@@ -1,45 +1,73 @@
 package com.parashop.product_service.service;
 
 import com.parashop.product_service.client.InventoryClient;
+import com.parashop.product_service.config.CacheConfig;
+import com.parashop.product_service.dto.CatalogDeltaResponse;
+import com.parashop.product_service.dto.ProductKey;
+import com.parashop.product_service.dto.ProductPageResponse;
 import com.parashop.product_service.dto.ProductRequest;
 import com.parashop.product_service.dto.ProductResponse;
+import com.parashop.product_service.dto.ProductSearchResponse;
+import com.parashop.product_service.event.ProductChangedEvent;
+import com.parashop.product_service.model.CatalogChange;
 import com.parashop.product_service.model.Category;
 import com.parashop.product_service.model.Product;
 import com.parashop.product_service.model.ProductImage;
+import com.parashop.product_service.repository.CatalogChangeRepository;
 import com.parashop.product_service.repository.CategoryRepository;
 import com.parashop.product_service.repository.ProductRepository;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
-import com.opencsv.bean.HeaderColumnNameMappingStrategy;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.beans.factory.annotation.Value;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
 
+    private static final int INVENTORY_BATCH_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MIN_SCAN_CHUNK = 50;
+    private static final int MAX_SCAN_CHUNKS = 20;
+    private static final int MAX_DELTA_CHANGES = 1000;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final TransactionTemplate transactionTemplate;
     private final InventoryClient inventoryClient;
+    private final ProductImportService productImportService;
+    private final ImageStorageService imageStorageService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
+    @CacheEvict(cacheNames = {CacheConfig.CATALOG, CacheConfig.CATALOG_PAGES}, allEntries = true)
     public void createProduct(ProductRequest productRequest) {
         Product product = Product.builder()
                 .name(productRequest.getName())
@@ -63,8 +91,12 @@ public class ProductService {
             product.setImages(new ArrayList<>(productImages));
         }
 
-        productRepository.save(product);
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.save(product);
+            recordChange(CatalogChange.PRODUCT, product.getId(), CatalogChange.UPSERT);
+        });
         log.info("Produit {} est sauvegardé", product.getId());
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(List.of(product.getId())));
 
         // Handle initial stock
         if (productRequest.getQuantity() != null && productRequest.getQuantity() > 0) {
@@ -82,15 +114,153 @@ public class ProductService {
         }
     }
 
-    public List<ProductResponse> getAllProducts(boolean filterStock) {
-        List<Product> products = productRepository.findAll();
+    /**
+     * Catalogue complet et son ETag, calculé une fois à la mise en cache : version du catalogue, lue avant les produits
+     * pour ne jamais annoncer plus récent que le contenu, et empreinte du contenu (le stock change sans nouvelle version).
+     */
+    @Cacheable(cacheNames = CacheConfig.CATALOG, key = "#filterStock")
+    public Catalog getAllProducts(boolean filterStock) {
+        long version = catalogChangeRepository.findCurrentVersion();
+        List<Product> products = productRepository.findAllWithDetails();
+        Map<String, Integer> quantities = fetchQuantities(products.stream().map(Product::getProductCode).toList());
 
-        return products.stream()
-                .map(this::mapToProductResponse)
+        List<ProductResponse> responses = products.stream()
+                .map(product -> mapToProductResponse(product, quantities))
                 .filter(response -> !filterStock || response.isInStock())
                 .toList();
+        return new Catalog(responses, "\"" + version + "-" + Integer.toHexString(responses.hashCode()) + "\"");
+    }
+
+    public record Catalog(List<ProductResponse> products, String etag) {
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CATALOG_PAGES,
+            key = "{#afterId, #size, #category, #minPrice, #maxPrice, #inStock}")
+    public ProductPageResponse getProductPage(Long afterId, int size, String category,
+                                              BigDecimal minPrice, BigDecimal maxPrice, boolean inStock) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long cursor = afterId != null ? afterId : 0L;
+        // On lit une ligne de plus que la page pour savoir s'il reste des produits
+        int chunkSize = inStock ? Math.max(pageSize * 2, MIN_SCAN_CHUNK) : pageSize + 1;
+
+        List<ProductKey> selected = new ArrayList<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        boolean exhausted = false;
+        int scannedChunks = 0;
+
+        while (selected.size() <= pageSize && !exhausted && scannedChunks < MAX_SCAN_CHUNKS) {
+            List<ProductKey> keys = productRepository.findCatalogKeys(cursor, category, minPrice, maxPrice,
+                    PageRequest.of(0, chunkSize));
+            scannedChunks++;
+            exhausted = keys.size() < chunkSize;
+            if (keys.isEmpty()) {
+                break;
+            }
+
+            if (inStock) {
+                // Le filtre de stock ne porte que sur les codes : les produits en rupture ne sont jamais chargés
+                quantities.putAll(fetchQuantities(keys.stream().map(ProductKey::productCode).toList()));
+            }
+            for (ProductKey key : keys) {
+                cursor = key.id();
+                if (inStock && quantities.getOrDefault(key.productCode(), 0) <= 0) {
+                    continue;
+                }
+                selected.add(key);
+                if (selected.size() > pageSize) {
+                    break;
+                }
+            }
+        }
+
+        boolean hasMore = selected.size() > pageSize || (!exhausted && scannedChunks >= MAX_SCAN_CHUNKS);
+        if (selected.size() > pageSize) {
+            selected = selected.subList(0, pageSize);
+            cursor = selected.get(selected.size() - 1).id();
+        }
+
+        List<Product> products = selected.isEmpty()
+                ? List.of()
+                : productRepository.findAllWithDetailsByIdIn(selected.stream().map(ProductKey::id).toList());
+        if (!inStock) {
+            quantities = fetchQuantities(products.stream().map(Product::getProductCode).toList());
+        }
+        Map<String, Integer> pageQuantities = quantities;
+
+        return ProductPageResponse.builder()
+                .items(products.stream().map(product -> mapToProductResponse(product, pageQuantities)).toList())
+                .nextCursor(hasMore ? cursor : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    public ProductSearchResponse search(String query, String category, int offset, int limit) {
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(query, category, offset,
+                Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+
+        // Les produits sont rechargés en une requête puis remis dans l'ordre du classement
+        Map<Long, Product> productsById = new HashMap<>();
+        if (!result.productIds().isEmpty()) {
+            productRepository.findAllWithDetailsByIdIn(result.productIds())
+                    .forEach(product -> productsById.put(product.getId(), product));
+        }
+        List<Product> products = result.productIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<String, Integer> quantities = fetchQuantities(products.stream().map(Product::getProductCode).toList());
+
+        return ProductSearchResponse.builder()
+                .query(query)
+                .total(result.total())
+                .results(products.stream().map(product -> mapToProductResponse(product, quantities)).toList())
+                .categoryFacets(result.categoryFacets())
+                .build();
     }
 
+    public CatalogDeltaResponse getChangesSince(long since) {
+        List<CatalogChange> changes = catalogChangeRepository.findByVersionGreaterThanOrderByVersionAsc(since,
+                PageRequest.of(0, MAX_DELTA_CHANGES));
+        long toVersion = changes.isEmpty() ? since : changes.get(changes.size() - 1).getVersion();
+
+        // Seule la dernière modification de chaque produit compte
+        Map<Long, String> lastChangeByProduct = new LinkedHashMap<>();
+        boolean categoriesChanged = false;
+        for (CatalogChange change : changes) {
+            if (CatalogChange.CATEGORY.equals(change.getEntityType())) {
+                categoriesChanged = true;
+            } else {
+                lastChangeByProduct.remove(change.getEntityId());
+                lastChangeByProduct.put(change.getEntityId(), change.getChangeType());
+            }
+        }
+
+        List<Long> upsertedIds = lastChangeByProduct.entrySet().stream()
+                .filter(entry -> CatalogChange.UPSERT.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+        List<Product> products = upsertedIds.isEmpty() ? List.of() : productRepository.findAllWithDetailsByIdIn(upsertedIds);
+        Map<String, Integer> quantities = fetchQuantities(products.stream().map(Product::getProductCode).toList());
+
+        // Un produit modifié puis supprimé après cette page n'existe plus : on le renvoie comme supprimé
+        Set<Long> foundIds = products.stream().map(Product::getId).collect(Collectors.toSet());
+        List<Long> deletedIds = lastChangeByProduct.keySet().stream()
+                .filter(id -> !foundIds.contains(id))
+                .toList();
+
+        return CatalogDeltaResponse.builder()
+                .fromVersion(since)
+                .toVersion(toVersion)
+                .hasMore(changes.size() == MAX_DELTA_CHANGES)
+                .upserts(products.stream().map(product -> mapToProductResponse(product, quantities)).toList())
+                .deletedProductIds(deletedIds)
+                .categories(categoriesChanged
+                        ? categoryRepository.findAll().stream().map(Category::getName).toList()
+                        : null)
+                .build();
+    }
+
+    @CacheEvict(cacheNames = {CacheConfig.CATALOG, CacheConfig.CATALOG_PAGES}, allEntries = true)
     public void updateProduct(Long id, ProductRequest productRequest) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé avec l'id : " + id));
@@ -116,8 +286,12 @@ public class ProductService {
             product.getImages().addAll(newImages);
         }
 
-        productRepository.save(product);
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.save(product);
+            recordChange(CatalogChange.PRODUCT, id, CatalogChange.UPSERT);
+        });
         log.info("Produit {} est mis à jour", id);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(List.of(id)));
 
         // Handle stock adjustment
         if (productRequest.getQuantity() != null && productRequest.getQuantity() != 0) {
@@ -134,82 +308,67 @@ public class ProductService {
         }
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.CATALOG, CacheConfig.CATALOG_PAGES}, allEntries = true)
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.deleteById(id);
+            recordChange(CatalogChange.PRODUCT, id, CatalogChange.DELETE);
+        });
         log.info("Produit {} est supprimé", id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
+    // Les caches sont vidés par ProductImportService après chaque lot committé, même si l'import échoue ensuite
     public List<ProductRequest> uploadBulk(MultipartFile file) {
         log.info("Début de l'import bulk pour le fichier: {}", file.getOriginalFilename());
-        List<ProductRequest> invalidEntries = new ArrayList<>();
         try (Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            HeaderColumnNameMappingStrategy<ProductRequest> strategy = new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(ProductRequest.class);
-
-            CsvToBean<ProductRequest> csvToBean = new CsvToBeanBuilder<ProductRequest>(reader)
-                    .withMappingStrategy(strategy)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withType(ProductRequest.class)
-                    .build();
-
-            List<ProductRequest> productRequests = csvToBean.parse();
-            int successCount = 0;
-            int failCount = 0;
-
-            for (ProductRequest request : productRequests) {
-                if (isInvalid(request)) {
-                    invalidEntries.add(request);
-                    continue;
-                }
-                try {
-                    createProduct(request);
-                    successCount++;
-                } catch (Exception e) {
-                    invalidEntries.add(request);
-                    log.error("Erreur lors de la création du produit {}: {}", request.getName(), e.getMessage());
-                }
-            }
-            log.info("Import terminé: {} succès, {} à corriger", successCount, invalidEntries.size());
-            return invalidEntries;
+            return productImportService.importCsv(reader, new ImportJob(file.getOriginalFilename()));
         } catch (Exception e) {
             log.error("Erreur critique lors de l'import CSV: {}", e.getMessage(), e);
             throw new RuntimeException("Erreur de traitement du fichier CSV: " + e.getMessage());
         }
     }
 
-    private boolean isInvalid(ProductRequest request) {
-        return request.getName() == null || request.getName().isEmpty() ||
-               request.getPrice() == null ||
-               request.getProductCode() == null || request.getProductCode().isEmpty();
+    public List<ProductRequest> importFile(Path csvFile, ImportJob job) {
+        log.info("Début de l'import {} pour le fichier: {}", job.getId(), job.getFileName());
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return productImportService.importCsv(reader, job);
+        } catch (Exception e) {
+            log.error("Erreur critique lors de l'import CSV: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur de traitement du fichier CSV: " + e.getMessage());
+        }
     }
 
     public String uploadImage(MultipartFile file) {
-        try {
-            String uploadDir = "uploads/images/";
-            File dir = new File(uploadDir);
-            if (!dir.exists()) dir.mkdirs();
+        return imageStorageService.store(file);
+    }
 
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path path = Paths.get(uploadDir + fileName);
-            Files.copy(file.getInputStream(), path);
+    private Map<String, Integer> fetchQuantities(List<String> codes) {
+        List<String> productCodes = codes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
 
-            return "http://localhost:8888/api/product/images/" + fileName;
-        } catch (Exception e) {
-            log.error("Erreur lors de l'upload de l'image: {}", e.getMessage());
-            throw new RuntimeException("Erreur lors de l'enregistrement de l'image");
+        Map<String, Integer> quantities = new HashMap<>();
+        // Un seul appel à inventory-service par lot de codes au lieu d'un appel par produit
+        for (int from = 0; from < productCodes.size(); from += INVENTORY_BATCH_SIZE) {
+            List<String> batch = productCodes.subList(from, Math.min(from + INVENTORY_BATCH_SIZE, productCodes.size()));
+            try {
+                quantities.putAll(inventoryClient.getQuantities(batch));
+            } catch (Exception e) {
+                log.error("Erreur lors de la récupération du stock pour {} produits: {}", batch.size(), e.getMessage());
+            }
         }
+        return quantities;
     }
 
-    private ProductResponse mapToProductResponse(Product product) {
-        boolean isInStock = false;
-        Integer quantity = 0;
-        try {
-            // Fetch actual quantity from inventory service
-            quantity = inventoryClient.getQuantity(product.getProductCode());
-            isInStock = quantity > 0;
-        } catch (Exception e) {
-            log.error("Erreur lors de la récupération du stock pour {}: {}", product.getProductCode(), e.getMessage());
-        }
+    private ProductResponse mapToProductResponse(Product product, Map<String, Integer> quantities) {
+        Integer quantity = quantities.getOrDefault(product.getProductCode(), 0);
+        boolean isInStock = quantity != null && quantity > 0;
+
+        List<String> imageUrls = product.getImages() != null
+                ? product.getImages().stream().map(ProductImage::getImageUrl).toList()
+                : List.of();
 
         return ProductResponse.builder()
                 .id(product.getId())
@@ -218,18 +377,39 @@ public class ProductService {
                 .price(product.getPrice())
                 .discountPrice(product.getDiscountPrice())
                 .productCode(product.getProductCode())
-                .imageUrls(product.getImages() != null ? product.getImages().stream().map(ProductImage::getImageUrl).toList() : List.of())
+                .imageUrls(imageUrls)
+                .thumbnailUrl(imageUrls.isEmpty() ? null : imageStorageService.variantUrl(imageUrls.get(0), "thumb"))
                 .category(product.getCategory() != null ? product.getCategory().getName() : null)
                 .isInStock(isInStock)
                 .quantity(quantity)
                 .build();
     }
 
+    private void recordChange(String entityType, Long entityId, String changeType) {
+        catalogChangeRepository.save(CatalogChange.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .changeType(changeType)
+                .changedAt(Instant.now())
+                .build());
+    }
+
     private Category getOrCreateCategory(String categoryName) {
         if (categoryName == null || categoryName.trim().isEmpty()) {
             return null;
         }
         return categoryRepository.findByName(categoryName)
-                .orElseGet(() -> categoryRepository.save(Category.builder().name(categoryName).build()));
+                .orElseGet(() -> {
+                    Category category = transactionTemplate.execute(status -> {
+                        Category created = categoryRepository.save(Category.builder().name(categoryName).build());
+                        recordChange(CatalogChange.CATEGORY, created.getId(), CatalogChange.UPSERT);
+                        return created;
+                    });
+                    Cache categories = cacheManager.getCache(CacheConfig.CATEGORIES);
+                    if (categories != null) {
+                        categories.clear();
+                    }
+                    return category;
+                });
     }
 }
@@ -0,0 +1,94 @@
+package com.parashop.product_service.repository;
+
+import com.parashop.product_service.model.Category;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.model.ProductImage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductRepositoryTest {
+
+    private static final int PRODUCT_COUNT = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Category visage = entityManager.persist(Category.builder().name("Soin du Visage").build());
+        Category solaire = entityManager.persist(Category.builder().name("Solaire").build());
+
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = Product.builder()
+                    .name("Produit " + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .productCode("CODE_" + i)
+                    .category(i % 2 == 0 ? visage : solaire)
+                    .images(new ArrayList<>())
+                    .build();
+            product.getImages().add(ProductImage.builder().imageUrl("img-" + i + "-a.png").product(product).build());
+            product.getImages().add(ProductImage.builder().imageUrl("img-" + i + "-b.png").product(product).build());
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllWithDetailsLoadsCatalogInOneStatement() {
+        List<Product> products = productRepository.findAllWithDetails();
+
+        products.forEach(product -> {
+            product.getCategory().getName();
+            product.getImages().forEach(ProductImage::getImageUrl);
+        });
+
+        assertThat(products).hasSize(PRODUCT_COUNT);
+        assertThat(products).allSatisfy(product -> assertThat(product.getImages()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findAllWithDetailsByIdInLoadsPageInOneStatement() {
+        List<Long> ids = productRepository.findAll().stream().limit(5).map(Product::getId).toList();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Product> products = productRepository.findAllWithDetailsByIdIn(ids);
+
+        products.forEach(product -> {
+            product.getCategory().getName();
+            product.getImages().forEach(ProductImage::getImageUrl);
+        });
+
+        assertThat(products).extracting(Product::getId).containsExactlyElementsOf(ids);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.model.CatalogChange;
+import com.parashop.product_service.repository.CatalogChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@Import(CatalogVersionSequencer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogVersionSequencerTest {
+
+    @Autowired
+    private CatalogVersionSequencer sequencer;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void changeCommittedLateGetsAVersionAboveEverythingAlreadyServed() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // Transaction lente (import, édition) : son id est pris avant celui de la modification suivante
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            catalogChangeRepository.saveAndFlush(change(1L));
+            inserted.countDown();
+            await(commit);
+        }));
+        inserted.await(5, TimeUnit.SECONDS);
+        CatalogChange fast = catalogChangeRepository.save(change(2L));
+
+        sequencer.assignVersions();
+        long servedVersion = catalogChangeRepository.findCurrentVersion();
+        assertThat(catalogChangeRepository.findById(fast.getId()).orElseThrow().getVersion()).isEqualTo(servedVersion);
+
+        commit.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        sequencer.assignVersions();
+
+        List<CatalogChange> sinceServed = catalogChangeRepository.findByVersionGreaterThanOrderByVersionAsc(
+                servedVersion, PageRequest.of(0, 10));
+        assertThat(sinceServed).extracting(CatalogChange::getEntityId).containsExactly(1L);
+    }
+
+    private static CatalogChange change(Long productId) {
+        return CatalogChange.builder()
+                .entityType(CatalogChange.PRODUCT)
+                .entityId(productId)
+                .changeType(CatalogChange.UPSERT)
+                .changedAt(Instant.now())
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
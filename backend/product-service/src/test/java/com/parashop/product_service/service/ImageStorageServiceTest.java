@@ -0,0 +1,56 @@
+package com.parashop.product_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageStorageServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8888/api/product/images/";
+
+    @TempDir
+    Path imageDir;
+
+    @Test
+    void duplicateUploadLeavesNoTempFileAndExposesTheThumbnail() throws Exception {
+        ImageStorageService storage = new ImageStorageService(imageDir.toString(), BASE_URL);
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", png(1200, 600));
+
+        String url = storage.store(file);
+        assertThat(storage.store(file)).isEqualTo(url);
+
+        try (Stream<Path> files = Files.list(imageDir)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .hasSize(3)
+                    .noneMatch(name -> name.endsWith(".tmp"));
+        }
+        String hash = url.substring(BASE_URL.length(), url.lastIndexOf('.'));
+        assertThat(storage.variantUrl(url, "thumb")).isEqualTo(BASE_URL + hash + "_thumb.jpg");
+        assertThat(storage.variantUrl(url, "medium")).isEqualTo(BASE_URL + hash + "_medium.jpg");
+    }
+
+    @Test
+    void imagesWithoutVariantKeepTheirUrl() throws Exception {
+        ImageStorageService storage = new ImageStorageService(imageDir.toString(), BASE_URL);
+        String unreadable = storage.store(new MockMultipartFile("file", "photo.webp", "image/webp", new byte[]{1, 2, 3}));
+
+        assertThat(storage.variantUrl(unreadable, "thumb")).isEqualTo(unreadable);
+        assertThat(storage.variantUrl("https://cdn.example.com/photo.jpg", "thumb")).isEqualTo("https://cdn.example.com/photo.jpg");
+        assertThat(storage.variantUrl(BASE_URL + "3f2a9c1e-legacy.jpg", "thumb")).isEqualTo(BASE_URL + "3f2a9c1e-legacy.jpg");
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
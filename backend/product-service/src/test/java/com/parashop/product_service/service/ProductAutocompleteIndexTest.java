@@ -0,0 +1,45 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.client.InventoryClient;
+import com.parashop.product_service.dto.ProductSuggestion;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductAutocompleteIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+
+    @Test
+    void refreshedStockReordersTheSuggestions() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(
+                Product.builder().id(1L).name("Crème Hydratante").productCode("CREME_1").build(),
+                Product.builder().id(2L).name("Crème Solaire").productCode("CREME_2").build()));
+        when(inventoryClient.getQuantities(anyList())).thenReturn(Map.of("CREME_1", 50, "CREME_2", 5));
+
+        ProductAutocompleteIndex index = new ProductAutocompleteIndex(productRepository, inventoryClient);
+        index.rebuild();
+        assertThat(index.suggest("cre", 10)).extracting(ProductSuggestion::productCode)
+                .containsExactly("CREME_1", "CREME_2");
+
+        // Rupture du premier, réassort du second
+        when(inventoryClient.getQuantities(anyList())).thenReturn(Map.of("CREME_1", 0, "CREME_2", 80));
+        index.refreshWeights();
+
+        assertThat(index.suggest("cre", 10)).extracting(ProductSuggestion::productCode, ProductSuggestion::weight)
+                .containsExactly(tuple("CREME_2", 80), tuple("CREME_1", 0));
+        assertThat(index.suggest("solaire", 10)).extracting(ProductSuggestion::weight).containsExactly(80);
+    }
+}
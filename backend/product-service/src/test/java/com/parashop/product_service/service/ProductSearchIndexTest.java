@@ -0,0 +1,46 @@
+package com.parashop.product_service.service;
+
+import com.parashop.product_service.event.ProductChangedEvent;
+import com.parashop.product_service.model.Product;
+import com.parashop.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    @Test
+    void searchKeepsTheOldIndexUntilTheRebuildSwapsAndKeepsConcurrentChanges() {
+        Product creme = Product.builder().id(1L).name("Crème Hydratante").productCode("CREME_1").build();
+        Product savon = Product.builder().id(2L).name("Savon Doux").productCode("SAVON_1").build();
+        Product solaire = Product.builder().id(3L).name("Crème Solaire").productCode("CREME_2").build();
+
+        ProductSearchIndex index = new ProductSearchIndex(productRepository);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(creme));
+        index.rebuild();
+
+        AtomicReference<List<Long>> seenDuringRebuild = new AtomicReference<>();
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            // Pendant la lecture du catalogue : une recherche et la création d'un produit
+            seenDuringRebuild.set(index.search("creme", null, 0, 10).productIds());
+            when(productRepository.findAllWithDetailsByIdIn(anyCollection())).thenReturn(List.of(solaire));
+            index.onProductChanged(ProductChangedEvent.upserted(List.of(3L)));
+            return List.of(creme, savon);
+        });
+        index.rebuild();
+
+        assertThat(seenDuringRebuild.get()).containsExactly(1L);
+        assertThat(index.search("creme", null, 0, 10).productIds()).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("savon", null, 0, 10).productIds()).containsExactly(2L);
+    }
+}
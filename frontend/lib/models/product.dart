@@ -8,6 +8,7 @@ class Product {
   final String? category;
   final String? imageUrl;
   final List<String> imageUrls;
+  final String? thumbnailUrl; // 200 px variant of the first image, served by the product service
   final int stock;
 
   Product({
@@ -20,9 +21,13 @@ class Product {
     this.category,
     this.imageUrl,
     this.imageUrls = const [],
+    this.thumbnailUrl,
     this.stock = 0,
   });
 
+  // Grid cards load the small variant instead of the full-size image
+  String? get cardImageUrl => thumbnailUrl ?? imageUrl;
+
   factory Product.fromJson(Map<String, dynamic> json) {
     var images = (json['imageUrls'] as List<dynamic>?)?.map((e) => e.toString()).toList() ?? [];
     return Product(
@@ -35,6 +40,7 @@ class Product {
       category: json['category'],
       imageUrl: images.isNotEmpty ? images.first : json['imageUrl'],
       imageUrls: images,
+      thumbnailUrl: json['thumbnailUrl'],
       stock: json['quantity'] ?? 0,
     );
   }
@@ -49,6 +55,7 @@ class Product {
     String? category,
     String? imageUrl,
     List<String>? imageUrls,
+    String? thumbnailUrl,
     int? stock,
   }) {
     return Product(
@@ -61,6 +68,7 @@ class Product {
       category: category ?? this.category,
       imageUrl: imageUrl ?? this.imageUrl,
       imageUrls: imageUrls ?? this.imageUrls,
+      thumbnailUrl: thumbnailUrl ?? this.thumbnailUrl,
       stock: stock ?? this.stock,
     );
   }
@@ -10,59 +10,77 @@ class OrderProvider with ChangeNotifier {
   List<Map<String, dynamic>>? _userStats;
   bool _isLoading = false;
   String? _error;
+  String? _lastOrderNumber;
+
+  // Keyset cursor of the order history currently shown
+  static const int _orderPageSize = 20;
+  String? _historyUrl;
+  String? _nextCreatedAt;
+  int? _nextId;
+  bool _hasMoreOrders = false;
+  bool _isLoadingMore = false;
 
   List<Order> get orders => _orders;
   List<Map<String, dynamic>> get users => _users;
   List<Map<String, dynamic>> get userStats => _userStats ?? [];
   bool get isLoading => _isLoading;
   String? get error => _error;
+  String? get lastOrderNumber => _lastOrderNumber;
+  bool get hasMoreOrders => _hasMoreOrders;
+  bool get isLoadingMore => _isLoadingMore;
 
   final String _orderBaseUrl = 'http://localhost:8888/api/order';
   final String _authBaseUrl = 'http://localhost:8888/auth';
 
-  Future<void> fetchUserOrders(String username, String? token) async {
-    _isLoading = true;
-    _error = null;
-    notifyListeners();
+  // First page of a customer's orders, most recent first; fetchMoreOrders loads the next ones
+  Future<void> fetchUserOrders(String username, String? token) {
+    return _fetchOrderPage('$_orderBaseUrl/history/$username', token);
+  }
 
-    try {
-      final response = await http.get(
-        Uri.parse('$_orderBaseUrl/$username'),
-        headers: token != null ? {'Authorization': 'Bearer $token'} : {},
-      );
-      if (response.statusCode == 200) {
-        final List<dynamic> data = json.decode(response.body);
-        _orders = data.map((item) => Order.fromJson(item)).toList();
-      } else {
-        _error = 'Failed to load orders: ${response.statusCode}';
-      }
-    } catch (e) {
-      _error = e.toString();
-    }
-    _isLoading = false;
-    notifyListeners();
+  Future<void> fetchAllOrders(String? token) {
+    return _fetchOrderPage('$_orderBaseUrl/history', token);
   }
 
-  Future<void> fetchAllOrders(String? token) async {
-    _isLoading = true;
+  Future<void> fetchMoreOrders(String? token) async {
+    if (!_hasMoreOrders || _isLoading || _isLoadingMore || _historyUrl == null) return;
+    await _fetchOrderPage(_historyUrl!, token, append: true);
+  }
+
+  // Loading more keeps the current list on screen: only the first page shows the full-screen spinner
+  Future<void> _fetchOrderPage(String url, String? token, {bool append = false}) async {
+    if (append) {
+      _isLoadingMore = true;
+    } else {
+      _isLoading = true;
+    }
     _error = null;
     notifyListeners();
 
+    final cursor = append
+        ? '?beforeCreatedAt=${Uri.encodeQueryComponent(_nextCreatedAt!)}&beforeId=$_nextId&size=$_orderPageSize'
+        : '?size=$_orderPageSize';
     try {
       final response = await http.get(
-        Uri.parse(_orderBaseUrl),
+        Uri.parse('$url$cursor'),
         headers: token != null ? {'Authorization': 'Bearer $token'} : {},
       );
       if (response.statusCode == 200) {
-        final List<dynamic> data = json.decode(response.body);
-        _orders = data.map((item) => Order.fromJson(item)).toList();
+        final Map<String, dynamic> page = json.decode(response.body);
+        final List<dynamic> items = page['items'] ?? [];
+        final loaded = items.map((item) => Order.fromJson(item)).toList();
+        _orders = append ? [..._orders, ...loaded] : loaded;
+        _historyUrl = url;
+        _nextCreatedAt = page['nextCreatedAt'];
+        _nextId = page['nextId'];
+        _hasMoreOrders = page['hasMore'] == true;
       } else {
-        _error = 'Failed to load all orders: ${response.statusCode}';
+        _error = 'Failed to load orders: ${response.statusCode}';
       }
     } catch (e) {
       _error = e.toString();
     }
     _isLoading = false;
+    _isLoadingMore = false;
     notifyListeners();
   }
 
@@ -92,6 +110,7 @@ class OrderProvider with ChangeNotifier {
   Future<bool> placeOrder(List<CartItem> cartItems, String username, String? token) async {
     _isLoading = true;
     _error = null;
+    _lastOrderNumber = null;
     notifyListeners();
 
     final orderData = {
@@ -113,10 +132,18 @@ class OrderProvider with ChangeNotifier {
         body: json.encode(orderData),
       );
 
-      if (response.statusCode == 201) {
+      // 202: the order is saved as PENDING_STOCK, stock is reserved right after (it may end up REJECTED)
+      if (response.statusCode == 202 || response.statusCode == 201) {
+        if (response.statusCode == 202) {
+          _lastOrderNumber = json.decode(response.body)['orderNumber'];
+        }
         _isLoading = false;
         notifyListeners();
         return true;
+      } else if (response.statusCode == 503 && json.decode(response.body)['orderNumber'] != null) {
+        // Still being written: the order may appear under this number, check "My orders" before retrying
+        _lastOrderNumber = json.decode(response.body)['orderNumber'];
+        _error = 'Order $_lastOrderNumber is still being saved, check your orders before ordering again';
       } else {
         _error = 'Failed to place order: ${response.body}';
       }
@@ -188,7 +215,8 @@ class OrderProvider with ChangeNotifier {
         Uri.parse('$_orderBaseUrl/$orderId/item?productCode=$productCode&quantity=$quantity'),
         headers: token != null ? {'Authorization': 'Bearer $token'} : {},
       );
-      if (response.statusCode == 200) {
+      // 202: the line changes once inventory has adjusted the reservation (unchanged if stock is short)
+      if (response.statusCode == 202 || response.statusCode == 200) {
         return true;
       } else {
         _error = 'Failed to update item: ${response.body}';
@@ -2,6 +2,7 @@ import 'package:flutter/material.dart';
 import 'package:provider/provider.dart';
 import '../../providers/order_provider.dart';
 import '../../providers/auth_provider.dart';
+import '../../widgets/load_more_orders.dart';
 
 
 class OrderManagementScreen extends StatefulWidget {
@@ -43,8 +44,11 @@ class _OrderManagementScreenState extends State<OrderManagementScreen> {
 
           return ListView.builder(
             padding: const EdgeInsets.all(16),
-            itemCount: orderProvider.orders.length,
+            itemCount: orderProvider.orders.length + (orderProvider.hasMoreOrders ? 1 : 0),
             itemBuilder: (context, index) {
+              if (index == orderProvider.orders.length) {
+                return const LoadMoreOrders();
+              }
               final order = orderProvider.orders[index];
               return Card(
                 margin: const EdgeInsets.only(bottom: 16),
@@ -118,8 +122,12 @@ class _OrderManagementScreenState extends State<OrderManagementScreen> {
         color = Colors.green;
         break;
       case 'CANCELLED':
+      case 'REJECTED':
         color = Colors.red;
         break;
+      case 'PENDING_STOCK':
+        color = Colors.blueGrey;
+        break;
       default:
         color = Colors.orange;
     }
@@ -2,6 +2,7 @@ import 'package:flutter/material.dart';
 import 'package:provider/provider.dart';
 import '../../providers/order_provider.dart';
 import '../../providers/auth_provider.dart';
+import '../../widgets/load_more_orders.dart';
 import '../../models/order.dart';
 
 class UserOrdersScreen extends StatefulWidget {
@@ -56,8 +57,11 @@ class _UserOrdersScreenState extends State<UserOrdersScreen> {
 
           return ListView.builder(
             padding: const EdgeInsets.all(16),
-            itemCount: orderProvider.orders.length,
+            itemCount: orderProvider.orders.length + (orderProvider.hasMoreOrders ? 1 : 0),
             itemBuilder: (context, index) {
+              if (index == orderProvider.orders.length) {
+                return const LoadMoreOrders();
+              }
               final order = orderProvider.orders[index];
               return Card(
                 elevation: 0,
@@ -169,7 +173,8 @@ class _UserOrdersScreenState extends State<UserOrdersScreen> {
     Color color;
     switch (status) {
       case 'VALIDATED': color = Colors.green; break;
-      case 'CANCELLED': color = Colors.red; break;
+      case 'CANCELLED': case 'REJECTED': color = Colors.red; break;
+      case 'PENDING_STOCK': color = Colors.blueGrey; break;
       default: color = Colors.orange;
     }
     return Container(
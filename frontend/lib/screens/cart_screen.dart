@@ -65,8 +65,11 @@ class CartScreen extends StatelessWidget {
                             );
                             if (success) {
                               if (context.mounted) {
+                                final orderNumber = orderProvider.lastOrderNumber;
                                 ScaffoldMessenger.of(context).showSnackBar(
-                                  const SnackBar(content: Text('Order placed successfully!')),
+                                  SnackBar(content: Text(orderNumber != null
+                                      ? 'Order #${orderNumber.substring(0, 8)} received, reserving stock...'
+                                      : 'Order placed successfully!')),
                                 );
                                 Navigator.of(context).pushReplacement(
                                   MaterialPageRoute(builder: (context) => const OrdersScreen()),
@@ -436,7 +436,7 @@ class _AnimatedProductCardState extends State<_AnimatedProductCard> with SingleT
                               ? ClipRRect(
                                   borderRadius: BorderRadius.vertical(top: Radius.circular(18)),
                                   child: Image.network(
-                                    widget.product.imageUrl!,
+                                    widget.product.cardImageUrl!,
                                     fit: BoxFit.cover,
                                     errorBuilder: (context, error, stackTrace) =>
                                         Icon(Icons.local_pharmacy, size: 50, color: AppTheme.accentGreen),
@@ -2,6 +2,7 @@ import 'package:flutter/material.dart';
 import 'package:provider/provider.dart';
 import '../providers/order_provider.dart';
 import '../providers/auth_provider.dart';
+import '../widgets/load_more_orders.dart';
 import 'package:intl/intl.dart';
 import 'dart:async';
 import '../utils/custom_notification.dart';
@@ -80,8 +81,11 @@ class _OrdersScreenState extends State<OrdersScreen> {
 
           return ListView.builder(
             padding: const EdgeInsets.all(16),
-            itemCount: orderProvider.orders.length,
+            itemCount: orderProvider.orders.length + (orderProvider.hasMoreOrders ? 1 : 0),
             itemBuilder: (context, index) {
+              if (index == orderProvider.orders.length) {
+                return const LoadMoreOrders();
+              }
               final order = orderProvider.orders[index];
               return Card(
                 margin: const EdgeInsets.only(bottom: 16),
@@ -198,6 +202,16 @@ class _OrdersScreenState extends State<OrdersScreen> {
     String label;
 
     switch (status) {
+      case 'PENDING_STOCK':
+        color = Colors.blueGrey;
+        icon = Icons.sync;
+        label = 'Reserving stock';
+        break;
+      case 'REJECTED':
+        color = Colors.red;
+        icon = Icons.remove_shopping_cart;
+        label = 'Out of stock';
+        break;
       case 'PENDING_VALIDATION':
         color = Colors.orange;
         icon = Icons.hourglass_empty;
@@ -304,7 +304,7 @@ class _ProductsPageState extends State<ProductsPage> {
                     child: product.imageUrl != null && product.imageUrl!.isNotEmpty
                         ? ClipRRect(
                             borderRadius: BorderRadius.vertical(top: Radius.circular(14)),
-                            child: Image.network(product.imageUrl!, fit: BoxFit.cover),
+                            child: Image.network(product.cardImageUrl!, fit: BoxFit.cover),
                           )
                         : Icon(Icons.local_pharmacy, size: 50, color: AppTheme.accentGreen),
                   ),
@@ -318,7 +318,7 @@ class _PromotionsPageState extends State<PromotionsPage> {
                     child: product.imageUrl != null && product.imageUrl!.isNotEmpty
                         ? ClipRRect(
                             borderRadius: BorderRadius.vertical(top: Radius.circular(18)),
-                            child: Image.network(product.imageUrl!, fit: BoxFit.cover),
+                            child: Image.network(product.cardImageUrl!, fit: BoxFit.cover),
                           )
                         : Icon(Icons.local_pharmacy, size: 60, color: AppTheme.accentGreen),
                   ),
@@ -0,0 +1,29 @@
+import 'package:flutter/material.dart';
+import 'package:provider/provider.dart';
+import '../providers/auth_provider.dart';
+import '../providers/order_provider.dart';
+
+// Last row of an order list: loads the next page of the history (keyset cursor, no page numbers)
+class LoadMoreOrders extends StatelessWidget {
+  const LoadMoreOrders({super.key});
+
+  @override
+  Widget build(BuildContext context) {
+    final orderProvider = Provider.of<OrderProvider>(context);
+    return Padding(
+      padding: const EdgeInsets.symmetric(vertical: 8),
+      child: Center(
+        child: orderProvider.isLoadingMore
+            ? const CircularProgressIndicator(color: Colors.teal)
+            : TextButton.icon(
+                icon: const Icon(Icons.expand_more, color: Colors.teal),
+                label: const Text('Load more orders', style: TextStyle(color: Colors.teal)),
+                onPressed: () {
+                  final auth = Provider.of<AuthProvider>(context, listen: false);
+                  orderProvider.fetchMoreOrders(auth.user?.token);
+                },
+              ),
+      ),
+    );
+  }
+}